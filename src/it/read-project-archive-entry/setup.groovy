@@ -1,5 +1,3 @@
-package org.codehaus.mojo.properties;
-
 /*
  * Licensed to the Apache Software Foundation (ASF) under one
  * or more contributor license agreements.  See the NOTICE file
@@ -18,32 +16,18 @@ package org.codehaus.mojo.properties;
  * specific language governing permissions and limitations
  * under the License.
  */
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
 
-/**
- * @author tdiamantis
- */
-public class KeyAndDefaultValue {
-    private String key;
-    private String defaultValue;
-
-    public KeyAndDefaultValue(String key, String defaultValue) {
-        this.key = key;
-        this.defaultValue = defaultValue;
-    }
-
-    public String getKey() {
-        return key;
-    }
-
-    public void setKey(String key) {
-        this.key = key;
-    }
-
-    public String getDefaultValue() {
-        return defaultValue;
-    }
-
-    public void setDefaultValue(String defaultValue) {
-        this.defaultValue = defaultValue;
+File archiveDirectory = new File( basedir, 'archive' )
+new File( basedir, 'config.zip' ).withOutputStream { stream ->
+    ZipOutputStream zip = new ZipOutputStream( stream )
+    archiveDirectory.eachFileRecurse( groovy.io.FileType.FILES ) { file ->
+        String name = archiveDirectory.toPath().relativize( file.toPath() ).toString().replace( '\\', '/' )
+        zip.putNextEntry( new ZipEntry( name ) )
+        zip.write( file.bytes )
+        zip.closeEntry()
     }
+    zip.close()
 }
+return true
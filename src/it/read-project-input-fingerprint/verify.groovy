@@ -0,0 +1,28 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+File testFile = new File( basedir, 'target/classes/test.txt' )
+assert testFile.exists()
+
+String content = testFile.getText()
+assert content.contains('greeting has value Hello World')
+assert content =~ /fingerprint has value [0-9a-f]{64}/
+
+// the first build stores the result, the second one applies it without loading the file again
+String log = new File( basedir, 'build.log' ).getText()
+assert log.contains('[INFO] Inputs unchanged, applied 3 stored properties')
@@ -1,7 +1,6 @@
 package org.codehaus.mojo.properties;
 
 import java.util.List;
-import java.util.Locale;
 import java.util.Optional;
 
 import org.apache.maven.plugin.AbstractMojo;
@@ -12,21 +11,21 @@ import org.codehaus.mojo.properties.managers.PropertiesManager;
  */
 public abstract class AbstractPropertiesMojo extends AbstractMojo {
 
-    private final List<PropertiesManager> propertiesManagers;
+    private final PropertiesManagerRegistry propertiesManagers;
 
     protected AbstractPropertiesMojo(List<PropertiesManager> propertiesManagers) {
+        this(new PropertiesManagerRegistry(propertiesManagers));
+    }
+
+    protected AbstractPropertiesMojo(PropertiesManagerRegistry propertiesManagers) {
         this.propertiesManagers = propertiesManagers;
     }
 
     protected PropertiesManager getPropertiesManager(String resourceExtension) {
-        getLog().debug("Available properties managers: " + propertiesManagers);
-
-        String resourceExtensionLowerCase = resourceExtension.toLowerCase(Locale.ROOT);
-        Optional<PropertiesManager> propertiesStore = propertiesManagers.stream()
-                .filter(manager -> manager.isExtensionSupport(resourceExtensionLowerCase))
-                .findFirst();
+        Optional<PropertiesManager> propertiesStore = propertiesManagers.find(resourceExtension);
 
         if (!propertiesStore.isPresent()) {
+            getLog().debug("Available properties managers: " + propertiesManagers.getPropertiesManagers());
             getLog().warn("Unknown properties resource extension: '" + resourceExtension + "' assume as: '"
                     + PropertiesManager.DEFAULT_MANAGER_EXTENSION + "'");
             return getDefaultPropertiesManager();
@@ -36,9 +35,8 @@ public abstract class AbstractPropertiesMojo extends AbstractMojo {
     }
 
     private PropertiesManager getDefaultPropertiesManager() {
-        return propertiesManagers.stream()
-                .filter(manager -> manager.isExtensionSupport(PropertiesManager.DEFAULT_MANAGER_EXTENSION))
-                .findFirst()
+        return propertiesManagers
+                .find(PropertiesManager.DEFAULT_MANAGER_EXTENSION)
                 .orElseThrow(() -> new RuntimeException("Default properties manager not exist"));
     }
 }
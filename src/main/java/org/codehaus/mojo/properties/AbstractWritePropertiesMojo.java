@@ -52,6 +52,10 @@ public abstract class AbstractWritePropertiesMojo extends AbstractPropertiesMojo
         super(propertiesManagers);
     }
 
+    protected AbstractWritePropertiesMojo(PropertiesManagerRegistry propertiesManagers) {
+        super(propertiesManagers);
+    }
+
     /**
      * @param properties {@link Properties}
      * @throws MojoExecutionException {@link MojoExecutionException}
@@ -0,0 +1,113 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Zip and jar archives opened through the JDK zip file system, each one once.
+ * <p>
+ * Entries are addressed like <code>config.zip!/path/in/archive.yml</code>. The central directory of an archive is read
+ * when it is opened and reused for all entries read from it, until the archives are closed.
+ */
+final class ArchiveFileSystems implements Closeable {
+
+    private static final char ENTRY_SEPARATOR = '!';
+
+    private final Map<Path, FileSystem> fileSystems = new LinkedHashMap<>();
+
+    /**
+     * @param file file which may address an archive entry
+     * @return index of the <code>!</code> separating archive and entry, <code>-1</code> when the file is no archive
+     *         entry, because the path has no separator or no archive exists before it
+     */
+    static int indexOfEntry(File file) {
+        String path = file.getPath();
+        for (int index = path.indexOf(ENTRY_SEPARATOR); index >= 0; index = path.indexOf(ENTRY_SEPARATOR, index + 1)) {
+            if (index + 1 < path.length()
+                    && (path.charAt(index + 1) == '/' || path.charAt(index + 1) == File.separatorChar)
+                    && new File(path.substring(0, index)).isFile()) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param file archive entry, like <code>config.zip!/path/in/archive.yml</code>
+     * @param index index of the <code>!</code>, as returned by {@link #indexOfEntry(File)}
+     * @return path of the entry in the file system of the archive
+     * @throws IOException when the archive cannot be opened
+     */
+    Path getEntry(File file, int index) throws IOException {
+        String path = file.getPath();
+        Path archive =
+                new File(path.substring(0, index)).toPath().toAbsolutePath().normalize();
+        String entry = path.substring(index + 1).replace(File.separatorChar, '/');
+        return open(archive).getPath(entry);
+    }
+
+    private synchronized FileSystem open(Path archive) throws IOException {
+        FileSystem fileSystem = fileSystems.get(archive);
+        if (fileSystem == null) {
+            if (!Files.isRegularFile(archive)) {
+                throw new IOException("Archive not found: " + archive);
+            }
+            fileSystem = FileSystems.newFileSystem(archive, (ClassLoader) null);
+            fileSystems.put(archive, fileSystem);
+        }
+        return fileSystem;
+    }
+
+    /**
+     * @return number of opened archives
+     */
+    synchronized int size() {
+        return fileSystems.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        IOException failure = null;
+        for (FileSystem fileSystem : fileSystems.values()) {
+            try {
+                fileSystem.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        fileSystems.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
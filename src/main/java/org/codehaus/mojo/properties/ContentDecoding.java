@@ -0,0 +1,120 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Decoding stages chosen by compound file extensions, like <code>config.properties.gz</code>.
+ * <p>
+ * Extensions of compression formats supported by the JDK are taken from the end of the name, each one adds a stage
+ * decoding the content before the next one, and the remaining extension selects the properties manager. Supported are
+ * <code>gz</code> and <code>gzip</code> for gzip, and <code>zz</code> and <code>deflate</code> for zlib compressed
+ * content.
+ */
+final class ContentDecoding {
+
+    private static final Map<String, Decoder> DECODERS;
+
+    static {
+        Map<String, Decoder> decoders = new HashMap<>();
+        decoders.put("gz", GZIPInputStream::new);
+        decoders.put("gzip", GZIPInputStream::new);
+        decoders.put("zz", InflaterInputStream::new);
+        decoders.put("deflate", InflaterInputStream::new);
+        DECODERS = Collections.unmodifiableMap(decoders);
+    }
+
+    private final String extension;
+
+    /**
+     * Extensions of the stages, in the order of decoding.
+     */
+    private final List<String> stages;
+
+    private ContentDecoding(String extension, List<String> stages) {
+        this.extension = extension;
+        this.stages = stages;
+    }
+
+    private interface Decoder {
+        InputStream decode(InputStream in) throws IOException;
+    }
+
+    /**
+     * @param fileName name of the file or last segment of the URL path
+     * @return decoding stages of the name
+     */
+    static ContentDecoding of(String fileName) {
+        String name = fileName;
+        List<String> stages = new ArrayList<>(1);
+        String extension = FileUtils.extension(name);
+        while (DECODERS.containsKey(extension.toLowerCase(Locale.ROOT))) {
+            stages.add(extension.toLowerCase(Locale.ROOT));
+            name = name.substring(0, name.length() - extension.length() - 1);
+            extension = FileUtils.extension(name);
+        }
+        return new ContentDecoding(extension, stages);
+    }
+
+    /**
+     * @return extension selecting the properties manager
+     */
+    String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @return <code>true</code> when the content has to be decoded
+     */
+    boolean isEncoded() {
+        return !stages.isEmpty();
+    }
+
+    /**
+     * @param in encoded content, closed with the returned stream
+     * @return decoded content
+     * @throws IOException when the content cannot be decoded
+     */
+    InputStream decode(InputStream in) throws IOException {
+        InputStream decoded = in;
+        for (String stage : stages) {
+            decoded = DECODERS.get(stage).decode(decoded);
+        }
+        return decoded != in ? new BufferedInputStream(decoded) : in;
+    }
+
+    @Override
+    public String toString() {
+        return String.join("+", stages);
+    }
+}
@@ -1,67 +0,0 @@
-package org.codehaus.mojo.properties;
-
-/*
- * Licensed to the Apache Software Foundation (ASF) under one
- * or more contributor license agreements.  See the NOTICE file
- * distributed with this work for additional information
- * regarding copyright ownership.  The ASF licenses this file
- * to you under the Apache License, Version 2.0 (the
- * "License"); you may not use this file except in compliance
- * with the License.  You may obtain a copy of the License at
- *
- *   http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing,
- * software distributed under the License is distributed on an
- * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
- * KIND, either express or implied.  See the License for the
- * specific language governing permissions and limitations
- * under the License.
- */
-
-/**
- * ExpansionBuffer implementation that allows processing of default values within property placeholders
- *
- * @author tdiamantis
- */
-public class DefaultValuesAwareExpansionBufferImpl extends ExpansionBuffer {
-    public DefaultValuesAwareExpansionBufferImpl(String unresolved) {
-        super(unresolved);
-    }
-
-    public KeyAndDefaultValue extractPropertyKeyAndDefaultValue() {
-        advanceToNextPrefix();
-
-        discardPrefix();
-
-        String key = beforeNextSuffix();
-
-        String defaultValue = defaultValue();
-
-        discardToAfterNextSuffix();
-
-        return new KeyAndDefaultValue(key, defaultValue);
-    }
-
-    protected String beforeNextSuffix() {
-        int defValuePos = unresolved.indexOf(":");
-        int propertySuffixPos = unresolved.indexOf("}");
-
-        // check default value separator only if before next suffix
-        if (defValuePos != -1 && propertySuffixPos != -1 && defValuePos < propertySuffixPos) {
-            return unresolved.substring(0, defValuePos);
-        }
-
-        return unresolved.substring(0, propertySuffixPos);
-    }
-
-    private String defaultValue() {
-        int defValuePos = unresolved.indexOf(":");
-        int propertySuffixPos = unresolved.indexOf("}");
-        if (defValuePos != -1 && propertySuffixPos != -1 && (defValuePos + 1) < propertySuffixPos) {
-            return unresolved.substring(defValuePos + 1, propertySuffixPos);
-        }
-
-        return null;
-    }
-}
@@ -0,0 +1,123 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Function;
+
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.RepositorySystemSession;
+
+/**
+ * System properties and environment variables as seen by property placeholders.
+ * <p>
+ * System properties are copied once, so lookups do not lock. Environment variables are only read when a placeholder
+ * asks for one, through the view the JVM already keeps. A snapshot is shared by all executions of a Maven session,
+ * until {@link #invalidate(MavenSession)} is called because system properties were changed.
+ */
+final class EnvironmentSnapshot {
+
+    private static final String ENV_PREFIX = "env.";
+
+    private static final String SESSION_DATA_KEY = EnvironmentSnapshot.class.getName();
+
+    private static final Function<String, String> SYSTEM_ENVIRONMENT = System::getenv;
+
+    private final Map<String, String> systemProperties;
+
+    private final Function<String, String> environment;
+
+    private EnvironmentSnapshot(Map<String, String> systemProperties, Function<String, String> environment) {
+        this.systemProperties = systemProperties;
+        this.environment = environment;
+    }
+
+    /**
+     * @return snapshot of the current system properties and environment variables
+     */
+    static EnvironmentSnapshot capture() {
+        return new EnvironmentSnapshot(PropertyResolver.snapshot(System.getProperties()), SYSTEM_ENVIRONMENT);
+    }
+
+    /**
+     * @param environment environment variables, may be <code>null</code>
+     * @return snapshot of the current system properties and the given environment variables
+     */
+    static EnvironmentSnapshot of(Properties environment) {
+        Map<String, String> variables =
+                environment != null ? PropertyResolver.snapshot(environment) : Collections.<String, String>emptyMap();
+        return new EnvironmentSnapshot(PropertyResolver.snapshot(System.getProperties()), variables::get);
+    }
+
+    /**
+     * @param session current session, may be <code>null</code>
+     * @return snapshot shared by the session, captured on first use
+     */
+    static EnvironmentSnapshot forSession(MavenSession session) {
+        RepositorySystemSession repositorySession = session != null ? session.getRepositorySession() : null;
+        if (repositorySession == null) {
+            return capture();
+        }
+        Object snapshot = repositorySession.getData().get(SESSION_DATA_KEY);
+        if (snapshot == null) {
+            // concurrent executions may capture twice, both snapshots are equal
+            snapshot = capture();
+            repositorySession.getData().set(SESSION_DATA_KEY, snapshot);
+        }
+        return (EnvironmentSnapshot) snapshot;
+    }
+
+    /**
+     * Drop the snapshot shared by the session, the next execution captures a new one.
+     *
+     * @param session current session, may be <code>null</code>
+     */
+    static void invalidate(MavenSession session) {
+        RepositorySystemSession repositorySession = session != null ? session.getRepositorySession() : null;
+        if (repositorySession != null) {
+            repositorySession.getData().set(SESSION_DATA_KEY, null);
+        }
+    }
+
+    /**
+     * @param other another snapshot
+     * @return <code>true</code> when both snapshots have the same system properties and read the same environment
+     *         variables, so placeholders resolve the same way
+     */
+    boolean hasSameValues(EnvironmentSnapshot other) {
+        return other == this
+                || other != null && environment == other.environment && systemProperties.equals(other.systemProperties);
+    }
+
+    /**
+     * @param key placeholder key
+     * @return value of the system property, or for keys starting with <code>env.</code> of the environment variable,
+     *         <code>null</code> if not defined
+     */
+    String getValue(String key) {
+        String value = systemProperties.get(key);
+        if (value == null && key.startsWith(ENV_PREFIX)) {
+            value = environment.apply(key.substring(ENV_PREFIX.length()));
+        }
+        return value;
+    }
+}
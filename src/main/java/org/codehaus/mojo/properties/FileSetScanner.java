@@ -0,0 +1,150 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.codehaus.plexus.util.MatchPatterns;
+
+/**
+ * Finds the files of a file set, walking its directories concurrently when given a pool.
+ * <p>
+ * Include and exclude patterns are Ant style, like <code>config/&#42;&#42;/&#42;.yml</code>, relative to the directory
+ * of the set. Without includes, all files are included. Directories matching an exclude are not walked. Symbolic links
+ * to directories are not followed, so links cannot create cycles.
+ * <p>
+ * The files are returned sorted by their path relative to the directory, with <code>/</code> as separator, so the
+ * order does not depend on the walk nor on the operating system.
+ */
+final class FileSetScanner {
+
+    private final ForkJoinPool pool;
+
+    /**
+     * @param pool runs the walk, one task per directory, <code>null</code> to walk in the calling thread
+     */
+    FileSetScanner(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @param directory base directory of the set
+     * @param includes patterns of included files, all files when empty
+     * @param excludes patterns of excluded files and directories
+     * @return included files, sorted by relative path
+     * @throws IOException when a directory cannot be read
+     */
+    List<File> scan(File directory, List<String> includes, List<String> excludes) throws IOException {
+        MatchPatterns includePatterns =
+                MatchPatterns.from(normalize(includes.isEmpty() ? Collections.singletonList("**") : includes));
+        MatchPatterns excludePatterns = MatchPatterns.from(normalize(excludes));
+        List<String> relativePaths;
+        try {
+            Walk walk = new Walk(directory.toPath(), "", includePatterns, excludePatterns);
+            relativePaths = pool != null ? pool.invoke(walk) : walk.compute();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        // '/' sorts before letters and digits, unlike '\'
+        relativePaths.sort((a, b) -> a.replace(File.separatorChar, '/').compareTo(b.replace(File.separatorChar, '/')));
+        List<File> files = new ArrayList<>(relativePaths.size());
+        for (String relativePath : relativePaths) {
+            files.add(new File(directory, relativePath));
+        }
+        return files;
+    }
+
+    private static List<String> normalize(List<String> patterns) {
+        List<String> normalized = new ArrayList<>(patterns.size());
+        for (String pattern : patterns) {
+            String trimmed = pattern.trim().replace('/', File.separatorChar).replace('\\', File.separatorChar);
+            // like DirectoryScanner, a trailing separator stands for everything below
+            normalized.add(trimmed.endsWith(File.separator) ? trimmed + "**" : trimmed);
+        }
+        return normalized;
+    }
+
+    private static final class Walk extends RecursiveTask<List<String>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Path directory;
+
+        private final String relativePath;
+
+        private final transient MatchPatterns includes;
+
+        private final transient MatchPatterns excludes;
+
+        Walk(Path directory, String relativePath, MatchPatterns includes, MatchPatterns excludes) {
+            this.directory = directory;
+            this.relativePath = relativePath;
+            this.includes = includes;
+            this.excludes = excludes;
+        }
+
+        @Override
+        protected List<String> compute() {
+            List<String> files = new ArrayList<>();
+            List<Walk> subdirectories = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    String name = relativePath + entry.getFileName();
+                    BasicFileAttributes attributes =
+                            Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    if (attributes.isDirectory()) {
+                        if (includes.matchesPatternStart(name, true) && !excludes.matches(name, true)) {
+                            subdirectories.add(new Walk(entry, name + File.separator, includes, excludes));
+                        }
+                    } else if ((attributes.isRegularFile() || Files.isRegularFile(entry))
+                            && includes.matches(name, true)
+                            && !excludes.matches(name, true)) {
+                        files.add(name);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (!inForkJoinPool()) {
+                for (Walk subdirectory : subdirectories) {
+                    files.addAll(subdirectory.compute());
+                }
+                return files;
+            }
+            invokeAll(subdirectories);
+            for (Walk subdirectory : subdirectories) {
+                files.addAll(subdirectory.join());
+            }
+            return files;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+
+/**
+ * Reads property sources over HTTP with timeouts, retries and a limit of concurrent requests per host.
+ * <p>
+ * Failed connections, server errors and <code>429 Too Many Requests</code> are retried with exponential backoff.
+ * Responses may be gzip compressed. Bodies are always read completely, so the JDK can reuse kept-alive connections.
+ * The per-host permits are shared by all clients given the same map, see {@link #permitsForSession(MavenSession)}. The
+ * limit of the first request to a host applies, see {@link #getPermitLimit(URL)}.
+ */
+final class HttpSourceClient {
+
+    private static final String SESSION_DATA_KEY = HttpSourceClient.class.getName() + ".hostPermits";
+
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    private final int connectTimeout;
+
+    private final int readTimeout;
+
+    private final int retries;
+
+    private final long backoffMillis;
+
+    private final int maxConnectionsPerHost;
+
+    private final ConcurrentMap<String, HostPermits> hostPermits;
+
+    /**
+     * Client whose permits are not shared with other clients.
+     *
+     * @param connectTimeout connect timeout in milliseconds, <code>0</code> for none
+     * @param readTimeout read timeout in milliseconds, <code>0</code> for none
+     * @param retries number of retries after the first attempt
+     * @param backoffMillis wait before the first retry, doubled for each further retry
+     * @param maxConnectionsPerHost maximum number of concurrent requests to one host
+     */
+    HttpSourceClient(int connectTimeout, int readTimeout, int retries, long backoffMillis, int maxConnectionsPerHost) {
+        this(
+                connectTimeout,
+                readTimeout,
+                retries,
+                backoffMillis,
+                maxConnectionsPerHost,
+                new ConcurrentHashMap<String, HostPermits>());
+    }
+
+    /**
+     * @param connectTimeout connect timeout in milliseconds, <code>0</code> for none
+     * @param readTimeout read timeout in milliseconds, <code>0</code> for none
+     * @param retries number of retries after the first attempt
+     * @param backoffMillis wait before the first retry, doubled for each further retry
+     * @param maxConnectionsPerHost maximum number of concurrent requests to one host
+     * @param hostPermits permits per host shared with other clients
+     */
+    HttpSourceClient(
+            int connectTimeout,
+            int readTimeout,
+            int retries,
+            long backoffMillis,
+            int maxConnectionsPerHost,
+            ConcurrentMap<String, HostPermits> hostPermits) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.retries = retries;
+        this.backoffMillis = backoffMillis;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.hostPermits = hostPermits;
+    }
+
+    /**
+     * @param session current session, may be <code>null</code>
+     * @return permits per host shared by all executions of the session, not shared without a session
+     */
+    @SuppressWarnings("unchecked")
+    static ConcurrentMap<String, HostPermits> permitsForSession(MavenSession session) {
+        RepositorySystemSession repositorySession = session != null ? session.getRepositorySession() : null;
+        if (repositorySession == null) {
+            return new ConcurrentHashMap<>();
+        }
+        SessionData data = repositorySession.getData();
+        Object permits = data.get(SESSION_DATA_KEY);
+        while (permits == null) {
+            // only one of concurrent executions stores its map, the others use that one
+            data.set(SESSION_DATA_KEY, null, new ConcurrentHashMap<String, HostPermits>());
+            permits = data.get(SESSION_DATA_KEY);
+        }
+        return (ConcurrentMap<String, HostPermits>) permits;
+    }
+
+    /**
+     * @param url source location
+     * @return <code>true</code> for locations read by this client
+     */
+    static boolean isHttp(URL url) {
+        String protocol = url.getProtocol();
+        return "http".equalsIgnoreCase(protocol) || "https".equalsIgnoreCase(protocol);
+    }
+
+    /**
+     * @param url location of a source
+     * @return maximum number of concurrent requests to the host of the source, differs from the configured one when
+     *         another client sharing the permits was first
+     */
+    int getPermitLimit(URL url) {
+        return permitsOf(url).limit;
+    }
+
+    private HostPermits permitsOf(URL url) {
+        int port = url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+        return hostPermits.computeIfAbsent(
+                url.getHost().toLowerCase(Locale.ROOT) + ":" + port,
+                host -> new HostPermits(Math.max(1, maxConnectionsPerHost)));
+    }
+
+    /**
+     * @param url location of the source
+     * @return content of the source
+     * @throws IOException when the source cannot be read
+     */
+    byte[] fetch(URL url) throws IOException {
+        Response response = get(url, Collections.<String, String>emptyMap());
+        if (response.getStatus() != HttpURLConnection.HTTP_OK) {
+            throw new IOException("Server returned HTTP " + response.getStatus() + " for " + url);
+        }
+        return response.getBody();
+    }
+
+    /**
+     * @param url location of the source
+     * @param headers additional request headers
+     * @return last response, the body is only read for <code>200 OK</code>
+     * @throws IOException when no response was received after all retries
+     */
+    Response get(URL url, Map<String, String> headers) throws IOException {
+        Semaphore permits = permitsOf(url).semaphore;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                Response response = withPermit(permits, () -> request(url, headers));
+                if (!isRetryable(response.getStatus()) || attempt >= retries) {
+                    return response;
+                }
+            } catch (IOException e) {
+                if (attempt >= retries || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+            }
+            sleep(backoffMillis << Math.min(attempt, 16));
+        }
+    }
+
+    private static boolean isRetryable(int status) {
+        return status >= HttpURLConnection.HTTP_INTERNAL_ERROR || status == HTTP_TOO_MANY_REQUESTS;
+    }
+
+    private Response request(URL url, Map<String, String> headers) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            connection.setRequestProperty(header.getKey(), header.getValue());
+        }
+        try {
+            int status = connection.getResponseCode();
+            byte[] body = null;
+            if (status == HttpURLConnection.HTTP_OK) {
+                try (InputStream in = decode(connection, connection.getInputStream())) {
+                    body = readFully(in);
+                }
+            } else {
+                // drain the error body so the connection can be kept alive
+                try (InputStream in = connection.getErrorStream()) {
+                    if (in != null) {
+                        readFully(in);
+                    }
+                }
+            }
+            return new Response(
+                    status, body, connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"));
+        } catch (IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    private static InputStream decode(HttpURLConnection connection, InputStream in) throws IOException {
+        if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+            return new GZIPInputStream(in);
+        }
+        return in;
+    }
+
+    private static Response withPermit(Semaphore permits, Request request) throws IOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a connection");
+        }
+        try {
+            return request.execute();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+
+    static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private interface Request {
+        Response execute() throws IOException;
+    }
+
+    /**
+     * Permits of one host and the limit they were created with.
+     */
+    static final class HostPermits {
+        private final Semaphore semaphore;
+
+        private final int limit;
+
+        HostPermits(int limit) {
+            this.semaphore = new Semaphore(limit);
+            this.limit = limit;
+        }
+    }
+
+    /**
+     * Status, body and validators of a response.
+     */
+    static final class Response {
+        private final int status;
+
+        private final byte[] body;
+
+        private final String etag;
+
+        private final String lastModified;
+
+        Response(int status, byte[] body, String etag, String lastModified) {
+            this.status = status;
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        /**
+         * @return decoded body, <code>null</code> unless the status is <code>200 OK</code>
+         */
+        byte[] getBody() {
+            return body;
+        }
+
+        String getEtag() {
+            return etag;
+        }
+
+        String getLastModified() {
+            return lastModified;
+        }
+    }
+}
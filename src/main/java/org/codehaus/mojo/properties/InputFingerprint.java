@@ -0,0 +1,229 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Fingerprint of the inputs of an execution, and the project properties it changed, kept below the build directory.
+ * <p>
+ * The fingerprint covers the parameters, the sources and the incoming project properties. System properties and
+ * environment variables are not part of it, as most of them never show up in properties. Instead the ones referenced
+ * by placeholders are stored with their values, and have to be unchanged as well for the stored result to be used.
+ */
+final class InputFingerprint {
+
+    private static final String RECORD_DIRECTORY = "properties-maven-plugin/fingerprints";
+
+    private static final int MAGIC = 0x50524f46;
+
+    private static final int VERSION = 1;
+
+    private final MessageDigest digest = ParseCache.newDigest();
+
+    /**
+     * Add a named input.
+     *
+     * @param name name of the input
+     * @param value value of the input, may be <code>null</code>
+     * @return this fingerprint
+     */
+    InputFingerprint add(String name, Object value) {
+        update(name);
+        update(value == null ? "\u0000null" : value.toString());
+        return this;
+    }
+
+    /**
+     * Add all entries of a map, in the order of their keys.
+     *
+     * @param name name of the input
+     * @param values entries to add
+     * @return this fingerprint
+     */
+    InputFingerprint addAll(String name, Map<String, String> values) {
+        add(name, values.size());
+        for (Map.Entry<String, String> entry : new TreeMap<>(values).entrySet()) {
+            add(entry.getKey(), entry.getValue());
+        }
+        return this;
+    }
+
+    private void update(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // length prefixed, so different splits of the same text differ
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    /**
+     * @return the fingerprint as hex string, the fingerprint cannot be extended afterwards
+     */
+    String toHex() {
+        return ParseCache.digestToHex(digest.digest());
+    }
+
+    /**
+     * @param project current project
+     * @param executionId id of the execution
+     * @return file of the record of the execution, <code>null</code> without build directory
+     */
+    static Path recordFile(MavenProject project, String executionId) {
+        String buildDirectory = project.getBuild() != null ? project.getBuild().getDirectory() : null;
+        if (buildDirectory == null) {
+            return null;
+        }
+        return Paths.get(buildDirectory)
+                .resolve(RECORD_DIRECTORY)
+                .resolve(ParseCache.digestToHex(
+                                ParseCache.newDigest().digest(executionId.getBytes(StandardCharsets.UTF_8)))
+                        + ".bin");
+    }
+
+    /**
+     * Result of an execution stored with the fingerprint of its inputs.
+     */
+    static final class Record {
+
+        private final String fingerprint;
+
+        private final Map<String, String> references;
+
+        private final Map<String, String> output;
+
+        /**
+         * @param fingerprint fingerprint of the inputs
+         * @param references values of system properties and environment variables referenced by placeholders,
+         *            <code>null</code> for undefined ones
+         * @param output project properties changed by the execution
+         */
+        Record(String fingerprint, Map<String, String> references, Map<String, String> output) {
+            this.fingerprint = fingerprint;
+            this.references = references;
+            this.output = output;
+        }
+
+        String getFingerprint() {
+            return fingerprint;
+        }
+
+        Map<String, String> getReferences() {
+            return references;
+        }
+
+        Map<String, String> getOutput() {
+            return output;
+        }
+
+        /**
+         * @param file file of the record
+         * @return stored record, <code>null</code> when there is none or it cannot be read
+         */
+        static Record read(Path file) {
+            if (file == null || !Files.isRegularFile(file)) {
+                return null;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                long limit = Files.size(file);
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    return null;
+                }
+                String fingerprint = ParseCache.readString(in, limit);
+                Map<String, String> references = readMap(in, limit);
+                Map<String, String> output = readMap(in, limit);
+                return new Record(fingerprint, references, output);
+            } catch (IOException | RuntimeException e) {
+                // damaged record, run again
+                return null;
+            }
+        }
+
+        /**
+         * @param file file of the record
+         * @throws IOException when the record cannot be written
+         */
+        void write(Path file) throws IOException {
+            Files.createDirectories(file.getParent());
+            Path temp =
+                    Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out =
+                        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    ParseCache.writeString(out, fingerprint);
+                    writeMap(out, references);
+                    writeMap(out, output);
+                }
+                try {
+                    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                // left over when writing or moving failed
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private static Map<String, String> readMap(DataInputStream in, long limit) throws IOException {
+            int count = in.readInt();
+            if (count < 0 || count > limit) {
+                throw new IOException("Damaged record");
+            }
+            Map<String, String> map = new LinkedHashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String key = ParseCache.readString(in, limit);
+                map.put(key, in.readBoolean() ? ParseCache.readString(in, limit) : null);
+            }
+            return map;
+        }
+
+        private static void writeMap(DataOutputStream out, Map<String, String> map) throws IOException {
+            out.writeInt(map.size());
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                ParseCache.writeString(out, entry.getKey());
+                out.writeBoolean(entry.getValue() != null);
+                if (entry.getValue() != null) {
+                    ParseCache.writeString(out, entry.getValue());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.codehaus.mojo.properties.managers.KeyMapper;
+import org.codehaus.plexus.util.SelectorUtils;
+
+/**
+ * Selects and maps the keys loaded from the resources matching a pattern, while they are parsed.
+ * <p>
+ * A key is kept when it matches one of the <code>includes</code>, or there are none, and none of the
+ * <code>excludes</code>. Key patterns use <code>*</code> for any characters and <code>?</code> for one character, like
+ * <code>spring.datasource.*</code>. The first of the <code>renames</code> matching a kept key renames it, then
+ * <code>keyPrefix</code> is added.
+ *
+ * @since 1.4.0
+ */
+public class KeyProjection {
+
+    /**
+     * Ant style pattern of the resources, matched against the path of files relative to the project base directory,
+     * like <code>src/main/config/&#42;&#42;/&#42;.properties</code>, the path of classpath resources or other URLs.
+     */
+    private String source;
+
+    /**
+     * Patterns of the keys to keep, all keys by default.
+     */
+    private List<String> includes = new ArrayList<>();
+
+    /**
+     * Patterns of the keys to drop.
+     */
+    private List<String> excludes = new ArrayList<>();
+
+    /**
+     * Prefix of the keys, replacing the <code>keyPrefix</code> of the execution for these resources.
+     */
+    private String keyPrefix;
+
+    /**
+     * Rules renaming the kept keys.
+     */
+    private List<KeyRename> renames = new ArrayList<>();
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public List<String> getIncludes() {
+        return includes;
+    }
+
+    public void setIncludes(List<String> includes) {
+        this.includes = includes;
+    }
+
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    public void setExcludes(List<String> excludes) {
+        this.excludes = excludes;
+    }
+
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    public void setKeyPrefix(String keyPrefix) {
+        this.keyPrefix = keyPrefix;
+    }
+
+    public List<KeyRename> getRenames() {
+        return renames;
+    }
+
+    public void setRenames(List<KeyRename> renames) {
+        this.renames = renames;
+    }
+
+    /**
+     * @param defaultKeyPrefix prefix used without a prefix of its own, may be <code>null</code>
+     * @return the projection with its patterns compiled
+     * @throws IllegalArgumentException when the source is missing or a pattern is invalid
+     */
+    Compiled compile(String defaultKeyPrefix) {
+        if (source == null || source.trim().isEmpty()) {
+            throw new IllegalArgumentException("The source of a key projection is required");
+        }
+        List<Pattern> renamePatterns = new ArrayList<>();
+        List<String> replacements = new ArrayList<>();
+        for (KeyRename rename : nonNull(renames)) {
+            if (rename.getPattern() == null || rename.getReplacement() == null) {
+                throw new IllegalArgumentException("Pattern and replacement of a key rename are required: " + rename);
+            }
+            try {
+                renamePatterns.add(Pattern.compile(rename.getPattern()));
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("Invalid key rename pattern " + rename.getPattern(), e);
+            }
+            replacements.add(rename.getReplacement());
+        }
+        return new Compiled(
+                stripLeadingSlashes(source.trim().replace('\\', '/')),
+                globs(includes),
+                globs(excludes),
+                keyPrefix != null ? keyPrefix : defaultKeyPrefix,
+                renamePatterns,
+                replacements,
+                toString(defaultKeyPrefix));
+    }
+
+    private String toString(String defaultKeyPrefix) {
+        return "includes=" + nonNull(includes) + ", excludes=" + nonNull(excludes) + ", renames=" + nonNull(renames)
+                + ", keyPrefix=" + (keyPrefix != null ? keyPrefix : defaultKeyPrefix);
+    }
+
+    @Override
+    public String toString() {
+        return "source=" + source + ", " + toString(null);
+    }
+
+    private static <T> List<T> nonNull(List<T> list) {
+        return list != null ? list : Collections.emptyList();
+    }
+
+    /**
+     * @return one pattern matching any of the globs, <code>null</code> without globs
+     */
+    private static Pattern globs(List<String> globs) {
+        if (globs == null || globs.isEmpty()) {
+            return null;
+        }
+        StringBuilder regex = new StringBuilder();
+        for (String glob : globs) {
+            if (regex.length() > 0) {
+                regex.append('|');
+            }
+            for (String part : glob.trim().split("(?=[*?])|(?<=[*?])")) {
+                if ("*".equals(part)) {
+                    regex.append(".*");
+                } else if ("?".equals(part)) {
+                    regex.append('.');
+                } else if (!part.isEmpty()) {
+                    regex.append(Pattern.quote(part));
+                }
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    static String stripLeadingSlashes(String path) {
+        int start = 0;
+        while (start < path.length() && path.charAt(start) == '/') {
+            start++;
+        }
+        return path.substring(start);
+    }
+
+    /**
+     * Projection with compiled patterns, mapping keys for
+     * {@link org.codehaus.mojo.properties.managers.PropertiesManager}.
+     */
+    static final class Compiled implements KeyMapper {
+
+        private final String source;
+
+        private final Pattern includes;
+
+        private final Pattern excludes;
+
+        private final String keyPrefix;
+
+        private final List<Pattern> renamePatterns;
+
+        private final List<String> replacements;
+
+        private final String description;
+
+        private Compiled(
+                String source,
+                Pattern includes,
+                Pattern excludes,
+                String keyPrefix,
+                List<Pattern> renamePatterns,
+                List<String> replacements,
+                String description) {
+            this.source = source;
+            this.includes = includes;
+            this.excludes = excludes;
+            this.keyPrefix = keyPrefix;
+            this.renamePatterns = renamePatterns;
+            this.replacements = replacements;
+            this.description = description;
+        }
+
+        /**
+         * @param location path relative to the project base directory, classpath resource or URL, with <code>/</code>
+         *        as separator
+         * @return <code>true</code> when the projection applies to the resource
+         */
+        boolean matches(String location) {
+            return SelectorUtils.matchPath(source, stripLeadingSlashes(location), "/", true);
+        }
+
+        @Override
+        public String map(String key) {
+            if (includes != null && !includes.matcher(key).matches()
+                    || excludes != null && excludes.matcher(key).matches()) {
+                return null;
+            }
+            String mapped = key;
+            for (int i = 0; i < renamePatterns.size(); i++) {
+                Matcher matcher = renamePatterns.get(i).matcher(key);
+                if (matcher.matches()) {
+                    mapped = matcher.replaceFirst(replacements.get(i));
+                    break;
+                }
+            }
+            return keyPrefix != null ? keyPrefix + mapped : mapped;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+}
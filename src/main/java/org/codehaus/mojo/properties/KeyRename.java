@@ -20,29 +20,40 @@ package org.codehaus.mojo.properties;
  */
 
 /**
- * Default implementation of the ExpansionBuffer class
+ * Rule renaming the keys of a {@link KeyProjection} matching a regular expression.
  *
- * @author tdiamantis
+ * @since 1.4.0
  */
-public class ExpansionBufferImpl extends ExpansionBuffer {
-    public ExpansionBufferImpl(String unresolved) {
-        super(unresolved);
-    }
+public class KeyRename {
 
-    public KeyAndDefaultValue extractPropertyKeyAndDefaultValue() {
-        advanceToNextPrefix();
+    /**
+     * Regular expression matching the whole key.
+     */
+    private String pattern;
 
-        discardPrefix();
+    /**
+     * Replacement of the key, may refer to groups of the pattern like <code>$1</code>.
+     */
+    private String replacement;
 
-        String key = beforeNextSuffix();
+    public String getPattern() {
+        return pattern;
+    }
 
-        discardToAfterNextSuffix();
+    public void setPattern(String pattern) {
+        this.pattern = pattern;
+    }
+
+    public String getReplacement() {
+        return replacement;
+    }
 
-        return new KeyAndDefaultValue(key, null);
+    public void setReplacement(String replacement) {
+        this.replacement = replacement;
     }
 
-    protected String beforeNextSuffix() {
-        int propertySuffixPos = unresolved.indexOf("}");
-        return unresolved.substring(0, propertySuffixPos);
+    @Override
+    public String toString() {
+        return pattern + "->" + replacement;
     }
 }
@@ -0,0 +1,295 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Project properties whose placeholders are resolved when a key is first read. The resolved value replaces the
+ * unresolved one, so each key is resolved at most once.
+ * <p>
+ * Single keys are resolved by {@link #getProperty(String)} and {@link #get(Object)}. Any access to all values, like
+ * iterating the entries, resolves all remaining keys first, as does {@link #materialize()}. This includes
+ * {@link #stringPropertyNames()}, {@link #putAll(Map)} of another map with these properties and copying them into new
+ * <code>Properties</code>, which go through {@link #entrySet()} since Java 9. Maven itself copies the project
+ * properties like that, for example when building the properties for a forked execution or for filtering, so lazy
+ * resolution only saves the work until the first of these. Values put by others are
+ * taken as they are, also when put by {@link #compute(Object, BiFunction)}, {@link #merge(Object, Object, BiFunction)}
+ * and the other map operations, whose functions and return values see resolved values.
+ */
+class LazyResolvingProperties extends Properties {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Function<Map<String, String>, PropertyResolution> resolutionFactory;
+
+    private final Set<String> unresolvedKeys = new HashSet<>();
+
+    private transient PropertyResolution resolution;
+
+    /**
+     * @param resolutionFactory creates a resolution run over a snapshot of the unresolved values
+     */
+    LazyResolvingProperties(Function<Map<String, String>, PropertyResolution> resolutionFactory) {
+        this.resolutionFactory = resolutionFactory;
+    }
+
+    /**
+     * Mark all keys as to be resolved before they are read.
+     */
+    synchronized void markAllUnresolved() {
+        for (Object key : keySet()) {
+            if (key instanceof String) {
+                unresolvedKeys.add((String) key);
+            }
+        }
+    }
+
+    /**
+     * Check all keys not resolved yet for circular definitions and exceeded expansion limits, without resolving them.
+     *
+     * @throws IllegalArgumentException when properties are circularly defined or expansion limits are exceeded
+     */
+    synchronized void verify() {
+        if (!unresolvedKeys.isEmpty()) {
+            getResolution().verify(new ArrayList<>(unresolvedKeys));
+        }
+    }
+
+    /**
+     * @return number of keys not resolved yet
+     */
+    synchronized int getUnresolvedCount() {
+        return unresolvedKeys.size();
+    }
+
+    /**
+     * Resolve all keys not resolved yet.
+     *
+     * @throws IllegalArgumentException when properties are circularly defined or expansion limits are exceeded
+     */
+    synchronized void materialize() {
+        if (unresolvedKeys.isEmpty()) {
+            return;
+        }
+        Map<String, String> values = getResolution().resolve(new ArrayList<>(unresolvedKeys), null);
+        unresolvedKeys.clear();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            super.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private synchronized void resolve(Object key) {
+        if (key instanceof String && unresolvedKeys.contains(key)) {
+            String value = getResolution().getPropertyValue((String) key);
+            unresolvedKeys.remove(key);
+            super.put(key, value);
+        }
+    }
+
+    private PropertyResolution getResolution() {
+        if (resolution == null) {
+            Map<String, String> snapshot = new HashMap<>(size() * 2);
+            for (Map.Entry<Object, Object> entry : super.entrySet()) {
+                if (entry.getKey() instanceof String && entry.getValue() instanceof String) {
+                    snapshot.put((String) entry.getKey(), (String) entry.getValue());
+                }
+            }
+            resolution = resolutionFactory.apply(snapshot);
+        }
+        return resolution;
+    }
+
+    private synchronized void changed(Object key) {
+        // resolved values may depend on the changed key
+        resolution = null;
+        unresolvedKeys.remove(key);
+    }
+
+    @Override
+    public String getProperty(String key) {
+        resolve(key);
+        return super.getProperty(key);
+    }
+
+    @Override
+    public synchronized Object get(Object key) {
+        resolve(key);
+        return super.get(key);
+    }
+
+    @Override
+    public synchronized Object put(Object key, Object value) {
+        changed(key);
+        return super.put(key, value);
+    }
+
+    @Override
+    public synchronized void putAll(Map<?, ?> t) {
+        for (Map.Entry<?, ?> entry : t.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public synchronized Object remove(Object key) {
+        changed(key);
+        return super.remove(key);
+    }
+
+    @Override
+    public synchronized boolean remove(Object key, Object value) {
+        resolve(key);
+        boolean removed = super.remove(key, value);
+        if (removed) {
+            changed(key);
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized Object getOrDefault(Object key, Object defaultValue) {
+        resolve(key);
+        return super.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public synchronized Object putIfAbsent(Object key, Object value) {
+        resolve(key);
+        Object previous = super.putIfAbsent(key, value);
+        if (previous == null) {
+            changed(key);
+        }
+        return previous;
+    }
+
+    @Override
+    public synchronized Object replace(Object key, Object value) {
+        resolve(key);
+        Object previous = super.replace(key, value);
+        if (previous != null) {
+            changed(key);
+        }
+        return previous;
+    }
+
+    @Override
+    public synchronized boolean replace(Object key, Object oldValue, Object newValue) {
+        resolve(key);
+        boolean replaced = super.replace(key, oldValue, newValue);
+        if (replaced) {
+            changed(key);
+        }
+        return replaced;
+    }
+
+    @Override
+    public synchronized void replaceAll(BiFunction<? super Object, ? super Object, ?> function) {
+        materialize();
+        resolution = null;
+        super.replaceAll(function);
+    }
+
+    @Override
+    public synchronized Object computeIfAbsent(Object key, Function<? super Object, ?> mappingFunction) {
+        resolve(key);
+        if (super.get(key) != null) {
+            return super.get(key);
+        }
+        changed(key);
+        return super.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public synchronized Object computeIfPresent(
+            Object key, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+        resolve(key);
+        changed(key);
+        return super.computeIfPresent(key, remappingFunction);
+    }
+
+    @Override
+    public synchronized Object compute(Object key, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+        resolve(key);
+        changed(key);
+        return super.compute(key, remappingFunction);
+    }
+
+    @Override
+    public synchronized Object merge(
+            Object key, Object value, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+        resolve(key);
+        changed(key);
+        return super.merge(key, value, remappingFunction);
+    }
+
+    @Override
+    public synchronized void clear() {
+        unresolvedKeys.clear();
+        resolution = null;
+        super.clear();
+    }
+
+    @Override
+    public Set<Map.Entry<Object, Object>> entrySet() {
+        materialize();
+        return super.entrySet();
+    }
+
+    @Override
+    public Collection<Object> values() {
+        materialize();
+        return super.values();
+    }
+
+    @Override
+    public Enumeration<Object> elements() {
+        materialize();
+        return super.elements();
+    }
+
+    @Override
+    public synchronized void forEach(BiConsumer<? super Object, ? super Object> action) {
+        materialize();
+        super.forEach(action);
+    }
+
+    @Override
+    public synchronized boolean equals(Object o) {
+        materialize();
+        return super.equals(o);
+    }
+
+    @Override
+    public synchronized int hashCode() {
+        materialize();
+        return super.hashCode();
+    }
+}
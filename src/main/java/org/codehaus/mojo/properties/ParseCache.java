@@ -0,0 +1,308 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Parsed property files kept in a binary form below the build directory, so unchanged files are not parsed again by
+ * the next build.
+ * <p>
+ * An entry is used when it was written for the same file and parser, and
+ * <ul>
+ * <li>size and modification time of the file are unchanged, and the entry was written at least
+ * {@link #MODIFICATION_TIME_GRANULARITY_MILLIS} after that modification time, or</li>
+ * <li>the size is unchanged and the content hash is unchanged, for example after a fresh checkout.</li>
+ * </ul>
+ * The second rule covers file systems with coarse timestamps, where a file could be changed again within the same
+ * timestamp. Entries of another format version or which cannot be read are ignored and replaced. Entries which cannot
+ * be written are skipped, the cache only saves work.
+ */
+final class ParseCache {
+
+    private static final String CACHE_DIRECTORY = "properties-maven-plugin/parse-cache";
+
+    private static final int MAGIC = 0x50524f50;
+
+    private static final int VERSION = 1;
+
+    private static final long MODIFICATION_TIME_GRANULARITY_MILLIS = 2000;
+
+    private final Path directory;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder writeFailures = new LongAdder();
+
+    private volatile String writeFailure;
+
+    /**
+     * @param directory directory holding the entries
+     */
+    ParseCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param project current project
+     * @return cache below the build directory of the project, <code>null</code> without build directory
+     */
+    static ParseCache forProject(MavenProject project) {
+        String buildDirectory = project.getBuild() != null ? project.getBuild().getDirectory() : null;
+        if (buildDirectory == null) {
+            return null;
+        }
+        return new ParseCache(Paths.get(buildDirectory).resolve(CACHE_DIRECTORY));
+    }
+
+    /**
+     * Parsing of a file, like {@link org.codehaus.mojo.properties.managers.PropertiesManager#load(Path,
+     * java.nio.charset.Charset)}.
+     */
+    interface Parser {
+        Map<String, String> parse(Path file) throws IOException;
+    }
+
+    /**
+     * Get the properties of a file, parsing it only when no usable entry exists.
+     *
+     * @param file file to parse
+     * @param parserKey identifies the parser and all its settings affecting the result
+     * @param parser parses the file when needed
+     * @return parsed properties in the order of the file
+     * @throws IOException when the file cannot be read or parsed
+     */
+    Map<String, String> load(Path file, String parserKey, Parser parser) throws IOException {
+        Path absoluteFile = file.toAbsolutePath();
+        String path = absoluteFile.toString();
+        Path entryFile = directory.resolve(digestToHex(sha256(path + '\0' + parserKey)) + ".bin");
+        BasicFileAttributes attributes = Files.readAttributes(absoluteFile, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+
+        Entry entry = readEntry(entryFile, path, parserKey);
+        if (entry != null && entry.size == size) {
+            if (entry.modified == modified && entry.written - modified >= MODIFICATION_TIME_GRANULARITY_MILLIS) {
+                hits.increment();
+                return entry.properties;
+            }
+            if (Arrays.equals(entry.hash, hash(absoluteFile))) {
+                hits.increment();
+                // record the new modification time, so the next build does not hash again
+                storeEntry(entryFile, path, parserKey, size, modified, entry.hash, entry.properties);
+                return entry.properties;
+            }
+        }
+
+        misses.increment();
+        // hashed before parsing, a change in between shows as changed modification time and hash in the next build
+        byte[] hash = hash(absoluteFile);
+        Map<String, String> properties = parser.parse(absoluteFile);
+        storeEntry(entryFile, path, parserKey, size, modified, hash, properties);
+        return properties;
+    }
+
+    /**
+     * @return description of hits and misses
+     */
+    String getStatistics() {
+        String statistics = "parse cache: " + hits.sum() + " hits, " + misses.sum() + " misses";
+        long failures = writeFailures.sum();
+        return failures > 0 ? statistics + ", " + failures + " write failures" : statistics;
+    }
+
+    /**
+     * @return description of the first entry which could not be written, <code>null</code> if all were written
+     */
+    String getWriteFailure() {
+        return writeFailure;
+    }
+
+    private void storeEntry(
+            Path entryFile,
+            String path,
+            String parserKey,
+            long size,
+            long modified,
+            byte[] hash,
+            Map<String, String> properties) {
+        try {
+            writeEntry(entryFile, path, parserKey, size, modified, hash, properties);
+        } catch (IOException | RuntimeException e) {
+            writeFailures.increment();
+            if (writeFailure == null) {
+                writeFailure = "Cannot write parse cache entry for " + path + ": " + e;
+            }
+        }
+    }
+
+    private static Entry readEntry(Path entryFile, String path, String parserKey) {
+        if (!Files.isRegularFile(entryFile)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entryFile)))) {
+            long limit = Files.size(entryFile);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            if (!path.equals(readString(in, limit)) || !parserKey.equals(readString(in, limit))) {
+                return null;
+            }
+            Entry entry = new Entry();
+            entry.size = in.readLong();
+            entry.modified = in.readLong();
+            entry.written = in.readLong();
+            entry.hash = new byte[in.readUnsignedByte()];
+            in.readFully(entry.hash);
+            int count = in.readInt();
+            entry.properties = new LinkedHashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String key = readString(in, limit);
+                entry.properties.put(key, readString(in, limit));
+            }
+            return entry;
+        } catch (IOException | RuntimeException e) {
+            // damaged entry, parse again
+            return null;
+        }
+    }
+
+    private void writeEntry(
+            Path entryFile,
+            String path,
+            String parserKey,
+            long size,
+            long modified,
+            byte[] hash,
+            Map<String, String> properties)
+            throws IOException {
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, entryFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeString(out, path);
+                writeString(out, parserKey);
+                out.writeLong(size);
+                out.writeLong(modified);
+                out.writeLong(System.currentTimeMillis());
+                out.writeByte(hash.length);
+                out.write(hash);
+                out.writeInt(properties.size());
+                for (Map.Entry<String, String> property : properties.entrySet()) {
+                    writeString(out, property.getKey());
+                    writeString(out, property.getValue());
+                }
+            }
+            try {
+                Files.move(temp, entryFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, entryFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            // left over when writing or moving failed
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static String readString(DataInputStream in, long limit) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > limit) {
+            throw new IOException("Damaged entry");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        // writeUTF is limited to 64k
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] hash(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) >= 0) {
+                // drain
+            }
+        }
+        return digest.digest();
+    }
+
+    private static byte[] sha256(String value) {
+        return newDigest().digest(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+    }
+
+    static String digestToHex(byte[] digest) {
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static final class Entry {
+        private long size;
+
+        private long modified;
+
+        private long written;
+
+        private byte[] hash;
+
+        private Map<String, String> properties;
+    }
+}
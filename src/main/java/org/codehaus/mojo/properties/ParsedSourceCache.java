@@ -0,0 +1,120 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import javax.inject.Named;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.maven.SessionScoped;
+
+/**
+ * Parsed property sources shared by all modules of a build. Inherited executions reading the same company wide files
+ * or URLs parse them once per build instead of once per module.
+ * <p>
+ * Sources are identified by their resolved location and, for files, their size and modification time, together with
+ * the parser and its settings. When several threads ask for the same source at the same time, one of them loads it and
+ * the others wait for its result. A failed load is not kept, so the next request tries again. The returned maps are
+ * read-only views of the shared result.
+ */
+@Named
+@SessionScoped
+public final class ParsedSourceCache {
+
+    private final Map<String, CompletableFuture<Map<String, String>>> sources = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Loads a source when it is not cached yet.
+     */
+    interface Loader {
+        /**
+         * @return parsed properties, <code>null</code> when the source does not exist
+         * @throws IOException when the source cannot be read or parsed
+         */
+        Map<String, String> load() throws IOException;
+    }
+
+    /**
+     * Get the parsed properties of a source, loading it only when no other request did or does.
+     *
+     * @param key identity of the source and the parser
+     * @param loader loads the source
+     * @return read-only parsed properties, <code>null</code> when the source does not exist
+     * @throws IOException when the source cannot be read or parsed, also when another request failed to load it
+     */
+    Map<String, String> get(String key, Loader loader) throws IOException {
+        CompletableFuture<Map<String, String>> created = new CompletableFuture<>();
+        CompletableFuture<Map<String, String>> existing = sources.putIfAbsent(key, created);
+        if (existing != null) {
+            hits.increment();
+            return await(existing);
+        }
+
+        misses.increment();
+        try {
+            Map<String, String> properties = loader.load();
+            Map<String, String> result = properties != null ? Collections.unmodifiableMap(properties) : null;
+            created.complete(result);
+            return result;
+        } catch (IOException | RuntimeException | Error e) {
+            sources.remove(key, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static Map<String, String> await(CompletableFuture<Map<String, String>> source) throws IOException {
+        try {
+            return source.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interrupted = new InterruptedIOException("Interrupted while waiting for a source");
+            interrupted.initCause(e);
+            throw interrupted;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw new IOException(cause.getMessage(), cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    /**
+     * @return description of hits and misses
+     */
+    String getStatistics() {
+        return "parsed source cache: " + hits.sum() + " hits, " + misses.sum() + " misses";
+    }
+}
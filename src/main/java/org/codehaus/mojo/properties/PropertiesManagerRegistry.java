@@ -0,0 +1,76 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.codehaus.mojo.properties.managers.PropertiesManager;
+
+/**
+ * Properties managers indexed by file extension, shared by all executions of the plugin.
+ * <p>
+ * Managers only tell whether they support an extension, so the index is filled by the lookups, each extension is
+ * looked up in the manager list once.
+ */
+@Named
+@Singleton
+public final class PropertiesManagerRegistry {
+
+    private final List<PropertiesManager> propertiesManagers;
+
+    private final Map<String, Optional<PropertiesManager>> managersByExtension = new ConcurrentHashMap<>();
+
+    /**
+     * @param propertiesManagers available properties managers
+     */
+    @Inject
+    public PropertiesManagerRegistry(List<PropertiesManager> propertiesManagers) {
+        this.propertiesManagers = propertiesManagers;
+    }
+
+    /**
+     * @param extension file extension, in any case
+     * @return manager supporting the extension, empty if none does
+     */
+    Optional<PropertiesManager> find(String extension) {
+        return managersByExtension.computeIfAbsent(extension.toLowerCase(Locale.ROOT), this::search);
+    }
+
+    private Optional<PropertiesManager> search(String extension) {
+        return propertiesManagers.stream()
+                .filter(manager -> manager.isExtensionSupport(extension))
+                .findFirst();
+    }
+
+    /**
+     * @return available properties managers
+     */
+    List<PropertiesManager> getPropertiesManagers() {
+        return propertiesManagers;
+    }
+}
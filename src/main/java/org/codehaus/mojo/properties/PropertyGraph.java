@@ -0,0 +1,238 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Graph of property keys and the keys their values reference.
+ * <p>
+ * Components are computed with Tarjan's algorithm in linear time. They come out in reverse topological order, so
+ * resolving the keys in that order finds every referenced key already resolved.
+ */
+class PropertyGraph {
+
+    private final Map<String, PropertyTemplate> templates = new LinkedHashMap<>();
+
+    private final Map<String, List<String>> references = new HashMap<>();
+
+    /**
+     * @param key property key
+     * @param template parsed value of the key
+     * @param referencedKeys keys referenced from the value which are defined
+     */
+    void add(String key, PropertyTemplate template, List<String> referencedKeys) {
+        templates.put(key, template);
+        references.put(key, referencedKeys);
+    }
+
+    boolean contains(String key) {
+        return templates.containsKey(key);
+    }
+
+    PropertyTemplate getTemplate(String key) {
+        return templates.get(key);
+    }
+
+    /**
+     * @param key property key
+     * @return keys referenced from the value which are part of this graph
+     */
+    List<String> getReferences(String key) {
+        List<String> result = references.get(key);
+        return result != null ? result : Collections.<String>emptyList();
+    }
+
+    /**
+     * @return number of keys in this graph
+     */
+    int size() {
+        return templates.size();
+    }
+
+    /**
+     * @return strongly connected components, each referenced component before the components referencing it
+     */
+    List<List<String>> stronglyConnectedComponents() {
+        List<String> keys = new ArrayList<>(templates.keySet());
+        Map<String, Integer> indexOf = new HashMap<>(keys.size() * 2);
+        for (int i = 0; i < keys.size(); i++) {
+            indexOf.put(keys.get(i), i);
+        }
+
+        int size = keys.size();
+        int[] index = new int[size];
+        int[] lowLink = new int[size];
+        boolean[] onStack = new boolean[size];
+        Arrays.fill(index, -1);
+
+        List<List<String>> components = new ArrayList<>();
+        Deque<Integer> stack = new ArrayDeque<>();
+        // explicit call stack, deep reference chains must not overflow the thread stack
+        Deque<int[]> callStack = new ArrayDeque<>();
+        int counter = 0;
+
+        for (int root = 0; root < size; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            callStack.push(new int[] {root, 0});
+            index[root] = counter;
+            lowLink[root] = counter;
+            counter++;
+            stack.push(root);
+            onStack[root] = true;
+
+            while (!callStack.isEmpty()) {
+                int[] frame = callStack.peek();
+                int node = frame[0];
+                List<String> edges = getReferences(keys.get(node));
+
+                if (frame[1] < edges.size()) {
+                    Integer next = indexOf.get(edges.get(frame[1]++));
+                    if (next == null) {
+                        continue;
+                    }
+                    if (index[next] < 0) {
+                        index[next] = counter;
+                        lowLink[next] = counter;
+                        counter++;
+                        stack.push(next);
+                        onStack[next] = true;
+                        callStack.push(new int[] {next, 0});
+                    } else if (onStack[next]) {
+                        lowLink[node] = Math.min(lowLink[node], index[next]);
+                    }
+                    continue;
+                }
+
+                callStack.pop();
+                if (!callStack.isEmpty()) {
+                    int parent = callStack.peek()[0];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                }
+                if (lowLink[node] == index[node]) {
+                    List<String> component = new ArrayList<>();
+                    int member;
+                    do {
+                        member = stack.pop();
+                        onStack[member] = false;
+                        component.add(keys.get(member));
+                    } while (member != node);
+                    Collections.reverse(component);
+                    components.add(component);
+                }
+            }
+        }
+        return components;
+    }
+
+    /**
+     * Group acyclic components into levels. Keys of one level only reference keys of lower levels, or keys which are
+     * not part of this graph, so all keys of a level can be resolved independently of each other.
+     *
+     * @param components components in the order returned by {@link #stronglyConnectedComponents()}, without cycles
+     * @return keys grouped by level, lowest level first
+     */
+    List<List<String>> levels(List<List<String>> components) {
+        Map<String, Integer> levelOf = new HashMap<>(components.size() * 2);
+        List<List<String>> levels = new ArrayList<>();
+        for (List<String> component : components) {
+            String key = component.get(0);
+            int level = 0;
+            for (String referencedKey : getReferences(key)) {
+                Integer referencedLevel = levelOf.get(referencedKey);
+                if (referencedLevel != null) {
+                    level = Math.max(level, referencedLevel + 1);
+                }
+            }
+            levelOf.put(key, level);
+            if (level == levels.size()) {
+                levels.add(new ArrayList<>());
+            }
+            levels.get(level).add(key);
+        }
+        return levels;
+    }
+
+    /**
+     * @param component strongly connected component
+     * @return <code>true</code> when the keys of the component reference each other
+     */
+    boolean isCycle(List<String> component) {
+        if (component.size() > 1) {
+            return true;
+        }
+        String key = component.get(0);
+        return getReferences(key).contains(key);
+    }
+
+    /**
+     * Describe one cycle through the first key of a component.
+     *
+     * @param component strongly connected component which is a cycle
+     * @return description like <code>a=${b} -&gt; b=${a} -&gt; a</code>
+     */
+    String describeCycle(List<String> component) {
+        String start = component.get(0);
+        Set<String> members = new HashSet<>(component);
+        // breadth first search inside the component for the shortest way back to the start
+        Map<String, String> predecessor = new HashMap<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(start);
+        String last = null;
+        while (!queue.isEmpty() && last == null) {
+            String key = queue.poll();
+            for (String next : getReferences(key)) {
+                if (next.equals(start)) {
+                    last = key;
+                    break;
+                }
+                if (members.contains(next) && !predecessor.containsKey(next)) {
+                    predecessor.put(next, key);
+                    queue.add(next);
+                }
+            }
+        }
+
+        List<String> path = new ArrayList<>();
+        for (String key = last; key != null && !key.equals(start); key = predecessor.get(key)) {
+            path.add(key);
+        }
+        path.add(start);
+        Collections.reverse(path);
+
+        StringBuilder buffer = new StringBuilder();
+        for (String key : path) {
+            buffer.append(key).append("=").append(templates.get(key).getRaw()).append(" -> ");
+        }
+        return buffer.append(start).toString();
+    }
+}
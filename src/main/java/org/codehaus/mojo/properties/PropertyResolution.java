@@ -0,0 +1,452 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * One resolution run over a fixed set of properties. Every key is expanded at most once, the expanded value is
+ * remembered and reused by all later keys referencing it.
+ * <p>
+ * Keys are resolved in topological order of the graph of references between them, so expanding a value only ever
+ * appends values which are already resolved. Circular definitions are found up front from the strongly connected
+ * components of that graph.
+ * <p>
+ * Keys are looked up in a frozen snapshot of the properties, so it is safe to resolve independent keys concurrently.
+ * <p>
+ * Definitions which are not circular can still grow exponentially, like <code>a=${b}${b}</code>,
+ * <code>b=${c}${c}</code>, ... Expansion is therefore bounded per key by the length of its value, the number of
+ * placeholders substituted to expand it, counting those of the keys it references, and the depth of its references,
+ * see
+ * {@link #setLimits(int, long, int)}.
+ */
+class PropertyResolution {
+
+    /**
+     * Maximum number of keys named when describing a chain of references.
+     */
+    private static final int MAX_CHAIN_LENGTH = 20;
+
+    private final PropertyResolver resolver;
+
+    private final Map<String, String> properties;
+
+    private final EnvironmentSnapshot environment;
+
+    private final boolean useDefaultValues;
+
+    private final Map<String, String> resolved = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> depths = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> expansionSteps = new ConcurrentHashMap<>();
+
+    private int maxValueLength = Integer.MAX_VALUE;
+
+    private long maxExpansionSteps = Long.MAX_VALUE;
+
+    private int maxReferenceDepth = Integer.MAX_VALUE;
+
+    PropertyResolution(
+            PropertyResolver resolver,
+            Map<String, String> properties,
+            EnvironmentSnapshot environment,
+            boolean useDefaultValues) {
+        this.resolver = resolver;
+        this.properties = properties;
+        this.environment = environment;
+        this.useDefaultValues = useDefaultValues;
+    }
+
+    /**
+     * Bound the expansion, exceeding one of the limits fails the resolution.
+     *
+     * @param maxValueLength maximum length of an expanded value
+     * @param maxExpansionSteps maximum number of placeholders substituted to expand one key, counting the placeholders
+     *                          of the keys it references
+     * @param maxReferenceDepth maximum length of a chain of references starting at one key
+     */
+    void setLimits(int maxValueLength, long maxExpansionSteps, int maxReferenceDepth) {
+        this.maxValueLength = maxValueLength;
+        this.maxExpansionSteps = maxExpansionSteps;
+        this.maxReferenceDepth = maxReferenceDepth;
+    }
+
+    /**
+     * @param key property key
+     * @return resolved property value, empty string when key is not defined
+     * @throws IllegalArgumentException when properties are circularly defined
+     */
+    String getPropertyValue(String key) {
+        String value = resolved.get(key);
+        if (value == null) {
+            value = resolve(Collections.singleton(key), null).get(key);
+        }
+        return value != null ? value : "";
+    }
+
+    /**
+     * Find all keys which need to be resolved again after the given keys changed, using an index from each key to the
+     * keys referencing it.
+     *
+     * @param keys changed property keys
+     * @return the given keys together with all keys referencing them, directly or through other keys
+     */
+    Set<String> withDependents(Collection<String> keys) {
+        Map<String, List<String>> dependents = new HashMap<>();
+        Set<String> referencedKeys = new HashSet<>();
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+            PropertyTemplate template = resolver.getTemplate(entry.getValue(), useDefaultValues);
+            if (!template.hasPlaceholders()) {
+                continue;
+            }
+            referencedKeys.clear();
+            template.collectKeys(referencedKeys);
+            for (String referencedKey : referencedKeys) {
+                dependents
+                        .computeIfAbsent(referencedKey, k -> new ArrayList<>())
+                        .add(entry.getKey());
+            }
+        }
+
+        Set<String> result = new HashSet<>(keys);
+        Deque<String> pending = new ArrayDeque<>(keys);
+        while (!pending.isEmpty()) {
+            for (String dependent : dependents.getOrDefault(pending.pop(), Collections.emptyList())) {
+                if (result.add(dependent)) {
+                    pending.push(dependent);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Resolve the given keys together with all keys they reference.
+     *
+     * @param keys property keys
+     * @param pool pool used to resolve independent keys concurrently, <code>null</code> to resolve in the calling
+     *             thread
+     * @return resolved values of the given keys which are defined
+     * @throws IllegalArgumentException when properties are circularly defined, listing all cycles, or when one of the
+     *                                  expansion limits is exceeded
+     */
+    Map<String, String> resolve(Collection<String> keys, ForkJoinPool pool) {
+        PropertyGraph graph = buildGraph(keys);
+        List<List<String>> components = graph.stronglyConnectedComponents();
+        checkCycles(graph, components);
+
+        if (pool == null) {
+            StringBuilder buffer = new StringBuilder();
+            for (List<String> component : components) {
+                // without cycles every component is a single key
+                resolve(graph, component.get(0), buffer);
+            }
+        } else {
+            for (List<String> level : graph.levels(components)) {
+                resolveConcurrently(graph, level, pool);
+            }
+        }
+
+        Map<String, String> result = new HashMap<>();
+        for (String key : keys) {
+            String value = resolved.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Check the given keys and all keys they reference like {@link #resolve(Collection, ForkJoinPool)} does, without
+     * expanding any value. Only the length and the expansion steps of the values are computed, so this is cheap even
+     * for values which are too large to expand.
+     *
+     * @param keys property keys
+     * @throws IllegalArgumentException when properties are circularly defined, listing all cycles, or when one of the
+     *                                  expansion limits is exceeded
+     */
+    void verify(Collection<String> keys) {
+        PropertyGraph graph = buildGraph(keys);
+        List<List<String>> components = graph.stronglyConnectedComponents();
+        checkCycles(graph, components);
+
+        Map<String, Integer> keyDepths = new HashMap<>(depths);
+        Map<String, Long> lengths = new HashMap<>();
+        for (Map.Entry<String, String> entry : resolved.entrySet()) {
+            lengths.put(entry.getKey(), (long) entry.getValue().length());
+        }
+        Map<String, Long> keySteps = new HashMap<>(expansionSteps);
+        long[] size = new long[2];
+        for (List<String> component : components) {
+            String key = component.get(0);
+            keyDepths.put(key, checkDepth(graph, key, keyDepths));
+            size[0] = 0;
+            size[1] = 0;
+            measure(graph, key, graph.getTemplate(key), lengths, keySteps, size);
+            checkExpansionSteps(graph, key, size[1], keySteps);
+            lengths.put(key, size[0]);
+            keySteps.put(key, size[1]);
+        }
+    }
+
+    private static void checkCycles(PropertyGraph graph, List<List<String>> components) {
+        List<String> cycles = new ArrayList<>();
+        for (List<String> component : components) {
+            if (graph.isCycle(component)) {
+                cycles.add(graph.describeCycle(component));
+            }
+        }
+        if (!cycles.isEmpty()) {
+            throw new IllegalArgumentException("Circular property definition: " + String.join("; ", cycles));
+        }
+    }
+
+    private void resolve(PropertyGraph graph, String key, StringBuilder buffer) {
+        depths.put(key, checkDepth(graph, key, depths));
+
+        buffer.setLength(0);
+        long keySteps = expand(graph, key, graph.getTemplate(key), buffer);
+        checkExpansionSteps(graph, key, keySteps, expansionSteps);
+        expansionSteps.put(key, keySteps);
+        resolved.put(key, buffer.toString());
+    }
+
+    /**
+     * @return depth of references of the key, all keys it references must have a depth already
+     */
+    private int checkDepth(PropertyGraph graph, String key, Map<String, Integer> keyDepths) {
+        int depth = 0;
+        for (String referencedKey : graph.getReferences(key)) {
+            Integer referencedDepth = keyDepths.get(referencedKey);
+            if (referencedDepth != null && referencedDepth >= depth) {
+                depth = referencedDepth + 1;
+            }
+        }
+        if (depth > maxReferenceDepth) {
+            throw new IllegalArgumentException("Property " + key + " exceeds the maximum reference depth of "
+                    + maxReferenceDepth + ": " + describeChain(graph, key, keyDepths::get));
+        }
+        return depth;
+    }
+
+    private void checkExpansionSteps(PropertyGraph graph, String key, long keySteps, Map<String, Long> stepsOf) {
+        if (keySteps > maxExpansionSteps) {
+            throw new IllegalArgumentException("Property " + key + " exceeds the maximum number of expansion steps of "
+                    + maxExpansionSteps + ": " + describeChain(graph, key, stepsOf::get));
+        }
+    }
+
+    private void resolveConcurrently(PropertyGraph graph, List<String> level, ForkJoinPool pool) {
+        if (level.size() == 1) {
+            resolve(graph, level.get(0), new StringBuilder());
+            return;
+        }
+        try {
+            // a parallel stream started from within the pool runs on the pool's workers
+            pool.submit(() -> level.parallelStream().forEach(key -> resolve(graph, key, new StringBuilder())))
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while resolving properties", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Collect the given keys and all defined keys reachable from them which are not resolved yet.
+     */
+    private PropertyGraph buildGraph(Collection<String> keys) {
+        PropertyGraph graph = new PropertyGraph();
+        Deque<String> pending = new ArrayDeque<>(keys);
+        while (!pending.isEmpty()) {
+            String key = pending.pop();
+            if (resolved.containsKey(key) || graph.contains(key)) {
+                continue;
+            }
+            String value = fromPropertiesThenSystemThenEnvironment(key);
+            if (value == null) {
+                continue;
+            }
+
+            PropertyTemplate template = resolver.getTemplate(value, useDefaultValues);
+            List<String> referencedKeys = new ArrayList<>();
+            collectReferences(template, referencedKeys);
+            graph.add(key, template, referencedKeys);
+            for (String referencedKey : referencedKeys) {
+                if (!resolved.containsKey(referencedKey) && !graph.contains(referencedKey)) {
+                    pending.push(referencedKey);
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Default values are only followed for keys which are not defined, as only those will be expanded.
+     */
+    private void collectReferences(PropertyTemplate template, List<String> referencedKeys) {
+        for (PropertyTemplate.Segment segment : template.getSegments()) {
+            if (!segment.isPlaceholder()) {
+                continue;
+            }
+            String key = segment.getKey();
+            if (resolved.containsKey(key) || fromPropertiesThenSystemThenEnvironment(key) != null) {
+                referencedKeys.add(key);
+            } else if (segment.getDefaultValue() != null) {
+                collectReferences(segment.getDefaultValue(), referencedKeys);
+            }
+        }
+    }
+
+    /**
+     * Expand a template into the given buffer. All defined keys it references must be resolved already.
+     *
+     * @return number of substituted placeholders, including those substituted to expand the referenced keys
+     */
+    private long expand(PropertyGraph graph, String key, PropertyTemplate template, StringBuilder buffer) {
+        long keySteps = 0;
+        for (PropertyTemplate.Segment segment : template.getSegments()) {
+            if (!segment.isPlaceholder()) {
+                template.appendLiteral(segment, buffer);
+                continue;
+            }
+
+            keySteps = addSteps(keySteps, 1);
+            String value = resolved.get(segment.getKey());
+            if (value != null) {
+                keySteps = addSteps(keySteps, expansionSteps.getOrDefault(segment.getKey(), 0L));
+                buffer.append(value);
+            } else if (segment.getDefaultValue() != null) {
+                keySteps = addSteps(keySteps, expand(graph, key, segment.getDefaultValue(), buffer));
+            } else {
+                PropertyTemplate.appendUnresolved(segment, buffer);
+            }
+
+            if (buffer.length() > maxValueLength) {
+                throw new IllegalArgumentException("Property " + key + " exceeds the maximum value length of "
+                        + maxValueLength + ": " + describeChain(graph, key, this::resolvedLength));
+            }
+        }
+        return keySteps;
+    }
+
+    /**
+     * Compute the length and the expansion steps {@link #expand(PropertyGraph, String, PropertyTemplate,
+     * StringBuilder)} would produce, adding them to <code>size</code>.
+     */
+    private void measure(
+            PropertyGraph graph,
+            String key,
+            PropertyTemplate template,
+            Map<String, Long> lengths,
+            Map<String, Long> keySteps,
+            long[] size) {
+        for (PropertyTemplate.Segment segment : template.getSegments()) {
+            if (!segment.isPlaceholder()) {
+                size[0] += PropertyTemplate.literalLength(segment);
+            } else {
+                size[1] = addSteps(size[1], 1);
+                Long length = lengths.get(segment.getKey());
+                if (length != null) {
+                    size[0] = addSteps(size[0], length);
+                    size[1] = addSteps(size[1], keySteps.getOrDefault(segment.getKey(), 0L));
+                } else if (segment.getDefaultValue() != null) {
+                    measure(graph, key, segment.getDefaultValue(), lengths, keySteps, size);
+                } else {
+                    size[0] += PropertyTemplate.unresolvedLength(segment);
+                }
+            }
+
+            if (size[0] > maxValueLength) {
+                throw new IllegalArgumentException("Property " + key + " exceeds the maximum value length of "
+                        + maxValueLength + ": " + describeChain(graph, key, lengths::get));
+            }
+        }
+    }
+
+    /**
+     * Steps double with each level of definitions like <code>a=${b}${b}</code>, so the sum saturates instead of
+     * overflowing.
+     */
+    private static long addSteps(long steps, long more) {
+        long sum = steps + more;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private int resolvedLength(String key) {
+        String value = resolved.get(key);
+        return value != null ? value.length() : -1;
+    }
+
+    /**
+     * Describe the chain of references from the given key, following the heaviest referenced key at each step.
+     */
+    private String describeChain(PropertyGraph graph, String key, Function<String, ? extends Number> weight) {
+        StringBuilder chain = new StringBuilder(key);
+        String current = key;
+        for (int i = 0; i < MAX_CHAIN_LENGTH; i++) {
+            String next = null;
+            long heaviest = -1;
+            for (String referencedKey : graph.getReferences(current)) {
+                Number referencedWeight = weight.apply(referencedKey);
+                if (referencedWeight != null && referencedWeight.longValue() > heaviest) {
+                    heaviest = referencedWeight.longValue();
+                    next = referencedKey;
+                }
+            }
+            if (next == null) {
+                return chain.toString();
+            }
+            chain.append(" -> ").append(next);
+            current = next;
+        }
+        return chain.append(" -> ...").toString();
+    }
+
+    private String fromPropertiesThenSystemThenEnvironment(String key) {
+        String value = properties.get(key);
+
+        // try system properties and environment variables
+        if (value == null) {
+            value = environment.getValue(key);
+        }
+
+        return value;
+    }
+}
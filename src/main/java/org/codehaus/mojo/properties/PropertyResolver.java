@@ -19,9 +19,37 @@ package org.codehaus.mojo.properties;
  * under the License.
  */
 
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resolves property placeholders. A single instance is shared by all executions of the plugin, it keeps the parsed
+ * templates of values containing placeholders, so inherited values are only parsed once per build.
+ */
+@Named
+@Singleton
+public class PropertyResolver {
+
+    /**
+     * Maximum number of parsed templates kept for each mode of default values processing.
+     */
+    private static final int MAX_CACHED_TEMPLATES = 10000;
+
+    private final Map<String, PropertyTemplate> templates = new ConcurrentHashMap<>();
+
+    private final Map<String, PropertyTemplate> templatesWithDefaultValues = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
 
-class PropertyResolver {
+    private final LongAdder misses = new LongAdder();
 
     /**
      * Retrieves a property value, replacing values like ${token} using the Properties to look them up. Shamelessly
@@ -54,50 +82,83 @@ class PropertyResolver {
      */
     public String getPropertyValue(
             String key, Properties properties, Properties environment, boolean useDefaultValues) {
-        String value = properties.getProperty(key);
-
-        ExpansionBuffer buffer;
-        if (useDefaultValues) {
-            buffer = new DefaultValuesAwareExpansionBufferImpl(value);
-        } else {
-            buffer = new ExpansionBufferImpl(value);
-        }
-
-        CircularDefinitionPreventer circularDefinitionPreventer = new CircularDefinitionPreventer().visited(key, value);
+        return newResolution(snapshot(properties), EnvironmentSnapshot.of(environment), useDefaultValues)
+                .getPropertyValue(key);
+    }
 
-        while (buffer.hasMoreLegalPlaceholders()) {
-            KeyAndDefaultValue kv = buffer.extractPropertyKeyAndDefaultValue();
-            String newKey = kv.getKey();
-            String newValue =
-                    fromPropertiesThenSystemThenEnvironment(newKey, kv.getDefaultValue(), properties, environment);
+    /**
+     * Start a resolution run which shares resolved values between all keys it resolves.
+     *
+     * @param properties snapshot of project properties, see {@link #snapshot(Properties)}
+     * @param environment system properties and environment variables
+     * @param useDefaultValues process default values flag
+     * @return new resolution run
+     */
+    PropertyResolution newResolution(
+            Map<String, String> properties, EnvironmentSnapshot environment, boolean useDefaultValues) {
+        return new PropertyResolution(this, properties, environment, useDefaultValues);
+    }
 
-            circularDefinitionPreventer.visited(newKey, newValue);
+    /**
+     * Parse a value, reusing an earlier parsed template of the same value. Values without placeholders are cheap to
+     * parse and not cached.
+     *
+     * @param value the raw property value, may be <code>null</code>
+     * @param useDefaultValues process default values within placeholders
+     * @return parsed template
+     */
+    PropertyTemplate getTemplate(String value, boolean useDefaultValues) {
+        if (value == null || value.indexOf("${") < 0) {
+            return PropertyTemplate.parse(value, useDefaultValues);
+        }
 
-            buffer.add(newKey, newValue);
+        Map<String, PropertyTemplate> cache = useDefaultValues ? templatesWithDefaultValues : templates;
+        PropertyTemplate template = cache.get(value);
+        if (template != null) {
+            hits.increment();
+            return template;
         }
 
-        return buffer.toString();
+        misses.increment();
+        template = PropertyTemplate.parse(value, useDefaultValues);
+        if (cache.size() >= MAX_CACHED_TEMPLATES) {
+            evict(cache);
+        }
+        cache.put(value, template);
+        return template;
     }
 
-    private String fromPropertiesThenSystemThenEnvironment(
-            String key, String defaultValue, Properties properties, Properties environment) {
-        String value = properties.getProperty(key);
-
-        // try global environment
-        if (value == null) {
-            value = System.getProperty(key);
+    /**
+     * Drop a quarter of the cached templates. There is no usage order to follow, dropping arbitrary entries keeps the
+     * cache free of locks.
+     */
+    private static void evict(Map<String, PropertyTemplate> cache) {
+        int toRemove = MAX_CACHED_TEMPLATES / 4;
+        for (Iterator<String> iterator = cache.keySet().iterator(); iterator.hasNext() && toRemove > 0; toRemove--) {
+            iterator.next();
+            iterator.remove();
         }
+    }
 
-        // try environment variable
-        if (value == null && key.startsWith("env.") && environment != null) {
-            value = environment.getProperty(key.substring(4));
-        }
+    /**
+     * @return summary of the template cache usage, for debug output
+     */
+    String getCacheStatistics() {
+        return "template cache: " + (templates.size() + templatesWithDefaultValues.size()) + " entries, " + hits.sum()
+                + " hits, " + misses.sum() + " misses";
+    }
 
-        // try default value
-        if (value == null) {
-            value = defaultValue;
+    /**
+     * Copy properties into a map which can be read without locking.
+     *
+     * @param properties properties to copy
+     * @return unmodifiable copy of all string properties
+     */
+    static Map<String, String> snapshot(Properties properties) {
+        Map<String, String> snapshot = new HashMap<>(properties.size() * 2);
+        for (String key : properties.stringPropertyNames()) {
+            snapshot.put(key, properties.getProperty(key));
         }
-
-        return value;
+        return Collections.unmodifiableMap(snapshot);
     }
 }
@@ -0,0 +1,239 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A property value tokenized once into literal and placeholder segments.
+ * <p>
+ * Without default values support everything between <code>${</code> and the next <code>}</code> is the key. With
+ * default values support the key ends at the first <code>:</code> and the default value runs to the matching
+ * <code>}</code>, so nested placeholders like <code>${a:${b:c}}</code> are parsed as a whole. A placeholder without
+ * closing suffix is kept as literal text.
+ */
+final class PropertyTemplate {
+
+    private static final String PREFIX = "${";
+
+    private static final char SUFFIX = '}';
+
+    private static final char DEFAULT_VALUE_SEPARATOR = ':';
+
+    private static final PropertyTemplate EMPTY = new PropertyTemplate("", Collections.emptyList());
+
+    private final String raw;
+
+    private final List<Segment> segments;
+
+    private PropertyTemplate(String raw, List<Segment> segments) {
+        this.raw = raw;
+        this.segments = segments;
+    }
+
+    /**
+     * @param value the raw property value, may be <code>null</code>
+     * @param useDefaultValues process default values within placeholders
+     * @return parsed template
+     */
+    static PropertyTemplate parse(String value, boolean useDefaultValues) {
+        if (value == null || value.isEmpty()) {
+            return EMPTY;
+        }
+        if (value.indexOf(PREFIX) < 0) {
+            return new PropertyTemplate(value, Collections.singletonList(new Segment(0, value.length(), null, null)));
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        int pos = 0;
+        while (pos < value.length()) {
+            int prefixPos = value.indexOf(PREFIX, pos);
+            if (prefixPos < 0) {
+                break;
+            }
+            int keyStart = prefixPos + PREFIX.length();
+            int suffixPos = value.indexOf(SUFFIX, keyStart);
+            if (suffixPos < 0) {
+                break;
+            }
+
+            String key;
+            PropertyTemplate defaultValue = null;
+            int end = suffixPos;
+            int separatorPos = useDefaultValues ? value.indexOf(DEFAULT_VALUE_SEPARATOR, keyStart) : -1;
+            if (separatorPos >= 0 && separatorPos < suffixPos) {
+                key = value.substring(keyStart, separatorPos);
+                int matchingSuffixPos = matchingSuffix(value, separatorPos + 1);
+                end = matchingSuffixPos >= 0 ? matchingSuffixPos : suffixPos;
+                if (end > separatorPos + 1) {
+                    defaultValue = parse(value.substring(separatorPos + 1, end), true);
+                }
+            } else {
+                key = value.substring(keyStart, suffixPos);
+            }
+
+            if (prefixPos > pos) {
+                segments.add(new Segment(pos, prefixPos, null, null));
+            }
+            segments.add(new Segment(prefixPos, end + 1, key, defaultValue));
+            pos = end + 1;
+        }
+        if (pos < value.length()) {
+            segments.add(new Segment(pos, value.length(), null, null));
+        }
+        return new PropertyTemplate(value, segments);
+    }
+
+    /**
+     * Find the suffix closing a placeholder, skipping over nested placeholders.
+     */
+    private static int matchingSuffix(String value, int from) {
+        int depth = 0;
+        int i = from;
+        while (i < value.length()) {
+            char c = value.charAt(i);
+            if (c == SUFFIX) {
+                if (depth == 0) {
+                    return i;
+                }
+                depth--;
+            } else if (c == PREFIX.charAt(0) && value.startsWith(PREFIX, i)) {
+                depth++;
+                i++;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the raw value this template was parsed from
+     */
+    String getRaw() {
+        return raw;
+    }
+
+    /**
+     * @return <code>true</code> when the value contains at least one placeholder
+     */
+    boolean hasPlaceholders() {
+        return segments.size() > 1 || (segments.size() == 1 && segments.get(0).isPlaceholder());
+    }
+
+    /**
+     * Collect the keys of all placeholders, including the ones nested in default values.
+     *
+     * @param keys collection to add the keys to
+     */
+    void collectKeys(Collection<String> keys) {
+        for (Segment segment : segments) {
+            if (segment.isPlaceholder()) {
+                keys.add(segment.key);
+                if (segment.defaultValue != null) {
+                    segment.defaultValue.collectKeys(keys);
+                }
+            }
+        }
+    }
+
+    List<Segment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * Append the literal text of the given segment.
+     *
+     * @param segment segment of this template
+     * @param target builder to append to
+     */
+    void appendLiteral(Segment segment, StringBuilder target) {
+        target.append(raw, segment.start, segment.end);
+    }
+
+    /**
+     * @param segment literal segment of a template
+     * @return length of the literal text
+     */
+    static int literalLength(Segment segment) {
+        return segment.end - segment.start;
+    }
+
+    /**
+     * @param segment placeholder segment of a template
+     * @return length of the placeholder when it cannot be resolved, see {@link #appendUnresolved(Segment,
+     *         StringBuilder)}
+     */
+    static int unresolvedLength(Segment segment) {
+        return PREFIX.length() + segment.key.length() + 1;
+    }
+
+    /**
+     * Append a placeholder which could not be resolved. The default value part is dropped.
+     *
+     * @param segment placeholder segment of this template
+     * @param target builder to append to
+     */
+    static void appendUnresolved(Segment segment, StringBuilder target) {
+        target.append(PREFIX).append(segment.key).append(SUFFIX);
+    }
+
+    @Override
+    public String toString() {
+        return raw;
+    }
+
+    /**
+     * Literal text or a placeholder. Literals only keep their range in the raw value.
+     */
+    static final class Segment {
+        private final int start;
+
+        private final int end;
+
+        private final String key;
+
+        private final PropertyTemplate defaultValue;
+
+        private Segment(int start, int end, String key, PropertyTemplate defaultValue) {
+            this.start = start;
+            this.end = end;
+            this.key = key;
+            this.defaultValue = defaultValue;
+        }
+
+        boolean isPlaceholder() {
+            return key != null;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        /**
+         * @return parsed default value, <code>null</code> when no (or an empty) default value was given
+         */
+        PropertyTemplate getDefaultValue() {
+            return defaultValue;
+        }
+    }
+}
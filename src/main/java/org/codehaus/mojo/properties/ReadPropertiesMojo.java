@@ -22,28 +22,58 @@ package org.codehaus.mojo.properties;
 import javax.inject.Inject;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.util.Enumeration;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.FileSet;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.model.Profile;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
+import org.codehaus.mojo.properties.managers.KeyMapper;
 import org.codehaus.mojo.properties.managers.PropertiesManager;
-import org.codehaus.plexus.util.FileUtils;
-import org.codehaus.plexus.util.cli.CommandLineUtils;
+import org.codehaus.mojo.properties.managers.YamlDocumentSelector;
+import org.codehaus.mojo.properties.managers.YmlPropertiesManager;
+import org.yaml.snakeyaml.LoaderOptions;
 
 /**
  * The read-project-properties goal reads property files and URLs and stores the properties as project properties. It
@@ -58,17 +88,54 @@ import org.codehaus.plexus.util.cli.CommandLineUtils;
 @Mojo(name = "read-project-properties", defaultPhase = LifecyclePhase.NONE, threadSafe = true)
 public class ReadPropertiesMojo extends AbstractPropertiesMojo {
 
+    /**
+     * Project context key of the properties after the last resolution, prefixed to the value of
+     * <code>useDefaultValues</code> used for it.
+     */
+    private static final String RESOLVED_STATE_CONTEXT_KEY = ReadPropertiesMojo.class.getName() + ".resolvedState.";
+
+    /**
+     * Project context key of the keys loaded by executions which deferred their resolution.
+     */
+    private static final String PENDING_KEYS_CONTEXT_KEY = ReadPropertiesMojo.class.getName() + ".pendingKeys";
+
+    /**
+     * Project context key of the ids of executions of this goal which already ran.
+     */
+    private static final String EXECUTED_CONTEXT_KEY = ReadPropertiesMojo.class.getName() + ".executed";
+
+    private static final long RETRY_BACKOFF_MILLIS = 500;
+
     @Parameter(defaultValue = "${project}", readonly = true, required = true)
     private MavenProject project;
 
+    @Parameter(defaultValue = "${session}", readonly = true, required = true)
+    private MavenSession session;
+
+    @Parameter(defaultValue = "${mojoExecution}", readonly = true, required = true)
+    private MojoExecution mojoExecution;
+
     /**
-     * The properties files that will be used when reading properties.
+     * The properties files that will be used when reading properties. An entry of a zip or jar archive is read without
+     * extracting it, like <code>config.zip!/path/in/archive.yml</code>.
      *
      * @since 1.0.0
      */
     @Parameter
     private File[] files = new File[0];
 
+    /**
+     * Sets of files that will be used when reading properties, after <code>files</code>. Each set has a
+     * <code>directory</code>, relative to the project base directory, and Ant style <code>includes</code> and
+     * <code>excludes</code>, like <code>&#42;&#42;/&#42;.properties</code>. Without includes all files are read.
+     * Directories are walked concurrently, the files of a set are read in the order of their path relative to its
+     * directory, so later files take precedence.
+     *
+     * @since 1.4.0
+     */
+    @Parameter
+    private List<FileSet> fileSets;
+
     /**
      * The URLs that will be used when reading properties. These may be non-standard URLs of the form
      * <code>classpath:com/company/resource.properties</code>. Note that the type is not <code>URL</code> for this
@@ -96,6 +163,36 @@ public class ReadPropertiesMojo extends AbstractPropertiesMojo {
     @Parameter
     private String keyPrefix = null;
 
+    /**
+     * Keys to load from the resources matching a pattern, applied while parsing, so other keys are never stored. Each
+     * projection has a <code>source</code>, an Ant style pattern matched against the path of files relative to the
+     * project base directory, the path of classpath resources or other URLs, key patterns in <code>includes</code>
+     * and <code>excludes</code> using <code>*</code> and <code>?</code>, its own <code>keyPrefix</code> and
+     * <code>renames</code>, rules with a regular expression <code>pattern</code> matching the whole key and a
+     * <code>replacement</code>. The first projection matching a resource is used.
+     *
+     * <pre>
+     * &lt;keyProjections&gt;
+     *   &lt;keyProjection&gt;
+     *     &lt;source&gt;&#42;&#42;/application.properties&lt;/source&gt;
+     *     &lt;includes&gt;
+     *       &lt;include&gt;spring.datasource.*&lt;/include&gt;
+     *     &lt;/includes&gt;
+     *     &lt;renames&gt;
+     *       &lt;rename&gt;
+     *         &lt;pattern&gt;spring\.datasource\.(.*)&lt;/pattern&gt;
+     *         &lt;replacement&gt;db.$1&lt;/replacement&gt;
+     *       &lt;/rename&gt;
+     *     &lt;/renames&gt;
+     *   &lt;/keyProjection&gt;
+     * &lt;/keyProjections&gt;
+     * </pre>
+     *
+     * @since 1.4.0
+     */
+    @Parameter
+    private List<KeyProjection> keyProjections;
+
     /**
      * Skip plugin execution.
      *
@@ -120,19 +217,337 @@ public class ReadPropertiesMojo extends AbstractPropertiesMojo {
     @Parameter(defaultValue = "true")
     private boolean override = true;
 
+    /**
+     * Maximum number of files or URLs read and parsed at the same time, also used to walk the directories of
+     * <code>fileSets</code>. They are still merged in the order given, so precedence does not depend on this setting.
+     * By default they are read one after another in the thread of the build.
+     * <p>
+     * Every module of a parallel build, see <code>-T</code>, uses its own threads, so the number of threads reading
+     * sources at the same time is this value times the number of modules built in parallel.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "1", property = "prop.loadThreads")
+    private int loadThreads = 1;
+
+    /**
+     * Encoding of <code>.properties</code> files and URLs. YAML sources declare or detect their encoding themselves.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "ISO-8859-1", property = "prop.encoding")
+    private String encoding = "ISO-8859-1";
+
+    /**
+     * Key selecting the documents of multi-document YAML sources, for example <code>profiles</code> or
+     * <code>spring.config.activate.on-profile</code>. Documents without this key are always loaded, documents with it
+     * only when its value names one of the profiles in <code>yamlProfiles</code>. The value may list several profiles
+     * separated by commas or as a YAML sequence, like <code>[dev, test]</code>, and <code>!profile</code> selects a
+     * document when that profile is not used. Without a key, all documents are loaded, later ones overriding earlier
+     * ones.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(property = "prop.yamlProfileKey")
+    private String yamlProfileKey;
+
+    /**
+     * Profiles selecting documents of YAML sources with <code>yamlProfileKey</code>. By default the ids of the active
+     * Maven profiles of the project are used.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(property = "prop.yamlProfiles")
+    private List<String> yamlProfiles;
+
+    /**
+     * Maximum number of code points in one document of a YAML source. Raise it for large generated files.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "3145728", property = "prop.yamlCodePointLimit")
+    private int yamlCodePointLimit = 3145728;
+
+    /**
+     * Maximum number of aliases to mappings and sequences expanded in one document of a YAML source, including aliases
+     * inside expanded ones. Guards against documents growing exponentially through nested aliases.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "50", property = "prop.yamlMaxAliasesForCollections")
+    private int yamlMaxAliasesForCollections = 50;
+
+    /**
+     * Maximum nesting depth of mappings and sequences in a YAML source.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "50", property = "prop.yamlNestingDepthLimit")
+    private int yamlNestingDepthLimit = 50;
+
+    /**
+     * Keep parsed property files below the build directory and use them instead of parsing a file again while it is
+     * unchanged. A file counts as changed when its size, or its modification time and content hash differ. Worth
+     * enabling for large files, reading the cache of a small file costs about as much as parsing it.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "false", property = "prop.useParseCache")
+    private boolean useParseCache;
+
+    /**
+     * Skip loading and resolving when the inputs are unchanged since the last build, and apply the properties this
+     * execution changed then instead. The inputs are the parameters, the files or the content of URLs, the incoming
+     * project properties, and system properties and environment variables referenced by placeholders. The result is
+     * kept below the build directory. Files count as unchanged while their size and modification time are.
+     * <p>
+     * The fingerprint of the inputs is published as project property, see <code>fingerprintProperty</code>. Not used
+     * for executions resolving lazily or deferring their resolution.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "false", property = "prop.useInputFingerprint")
+    private boolean useInputFingerprint;
+
+    /**
+     * Project property receiving the fingerprint of the inputs with <code>useInputFingerprint</code>, including the
+     * referenced system properties and environment variables, for example for cache keys of later plugins.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "properties-maven-plugin.fingerprint", property = "prop.fingerprintProperty")
+    private String fingerprintProperty = "properties-maven-plugin.fingerprint";
+
+    /**
+     * Keep parsed files in memory from one build to the next while the plugin stays loaded, as in the Maven daemon
+     * <code>mvnd</code>. A file is parsed again when its size or modification time changed. URLs other than
+     * <code>file:</code> URLs are not kept.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "false", property = "prop.keepSourcesWarm")
+    private boolean keepSourcesWarm;
+
+    /**
+     * Maximum total number of properties kept by <code>keepSourcesWarm</code>. The least recently used sources are
+     * dropped first.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "200000", property = "prop.warmSourcesMaxProperties")
+    private long warmSourcesMaxProperties = 200000L;
+
+    /**
+     * Timeout in milliseconds for connecting to HTTP and HTTPS URLs, <code>0</code> waits forever.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "10000", property = "prop.urlConnectTimeout")
+    private int urlConnectTimeout = 10000;
+
+    /**
+     * Timeout in milliseconds for waiting on data from HTTP and HTTPS URLs, <code>0</code> waits forever.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "30000", property = "prop.urlReadTimeout")
+    private int urlReadTimeout = 30000;
+
+    /**
+     * How often reading an HTTP or HTTPS URL is retried after connection failures, server errors or
+     * <code>429 Too Many Requests</code>. The wait between attempts starts at half a second and doubles.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "2", property = "prop.urlRetries")
+    private int urlRetries = 2;
+
+    /**
+     * Maximum number of concurrent requests to one host, shared by all modules built in parallel within one build.
+     * The limit of the first execution reading from a host applies to the whole build, later executions configuring
+     * another limit log a warning.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "4", property = "prop.maxConnectionsPerHost")
+    private int maxConnectionsPerHost = 4;
+
+    /**
+     * Keep a copy of HTTP and HTTPS sources in <code>.cache/properties-maven-plugin</code> below the local repository,
+     * revalidated on later builds and used as it is when Maven runs offline.
+     * <p>
+     * Cached responses are stored unencrypted under the local repository, readable by anyone who can read it. Do not
+     * enable this for sources serving credentials or other secrets, also when they are served over authenticated
+     * HTTPS.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "false", property = "prop.cacheRemoteResources")
+    private boolean cacheRemoteResources;
+
+    /**
+     * Resolve properties which do not depend on each other concurrently. Worth enabling for a large number of
+     * properties referencing each other.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "false", property = "prop.parallelResolution")
+    private boolean parallelResolution;
+
+    /**
+     * Number of threads used by <code>parallelResolution</code>. By default the degree of concurrency of the build,
+     * as given by <code>-T</code>, is used.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(property = "prop.resolutionThreads")
+    private int resolutionThreads;
+
+    /**
+     * Only load and merge the properties, leave resolving them to the last execution of this goal configured in the
+     * module. With several executions, for example for defaults, overlays and local overrides, the properties are
+     * then resolved once instead of once per execution. An execution which does not defer also resolves all
+     * properties loaded by deferred executions before it.
+     * <p>
+     * Executions skipped by <code>skipLoadProperties</code> count as run, and the last one resolves the deferred
+     * properties. Executions without a phase, or with the phase <code>none</code>, do not run in the lifecycle and are
+     * not waited for. Properties stay unresolved when the build ends before the last execution, for example because it
+     * is bound to a later phase than the one requested.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "false", property = "prop.deferResolution")
+    private boolean deferResolution;
+
+    /**
+     * Resolve each property only when it is first read, for example by a plugin configuration, instead of resolving
+     * all properties at the end of this execution. Anything enumerating the properties resolves all remaining ones at
+     * once, like goals reading all properties, such as <code>write-project-properties</code>, and Maven itself when it
+     * copies the project properties, for example for resource filtering. Properties which are never read only cost
+     * nothing as long as nothing enumerates them.
+     * <p>
+     * Circular definitions and exceeded expansion limits are still reported by this execution, they are found without
+     * expanding any value.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "false", property = "prop.lazyResolution")
+    private boolean lazyResolution;
+
+    /**
+     * Maximum length of a property value after resolving its placeholders. Guards against definitions which grow
+     * exponentially, like <code>a=${b}${b}</code>, <code>b=${c}${c}</code>, ...
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "10000000", property = "prop.maxExpandedValueLength")
+    private int maxExpandedValueLength = 10000000;
+
+    /**
+     * Maximum number of placeholders substituted to resolve one property, counting the placeholders of the properties
+     * it references each time they are referenced. Guards against definitions like <code>a=${b}${b}</code>,
+     * <code>b=${c}${c}</code>, ... whose values stay short.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "10000000", property = "prop.maxExpansionSteps")
+    private long maxExpansionSteps = 10000000L;
+
+    /**
+     * Maximum length of a chain of properties referencing each other.
+     *
+     * @since 1.4.0
+     */
+    @Parameter(defaultValue = "1000", property = "prop.maxReferenceDepth")
+    private int maxReferenceDepth = 1000;
+
     /**
      * Used for resolving property placeholders.
      */
-    private final PropertyResolver resolver = new PropertyResolver();
+    private final PropertyResolver resolver;
+
+    /**
+     * Local copies of remote sources set by tests, taken from the session otherwise.
+     */
+    private RemoteResourceCache remoteResourceCache;
+
+    /**
+     * Parsed files of the project, <code>null</code> when not used.
+     */
+    private ParseCache parseCache;
+
+    /**
+     * Selects the documents of YAML sources, <code>null</code> to load all documents.
+     */
+    private YamlDocumentSelector yamlDocumentSelector;
+
+    /**
+     * Limits for YAML sources.
+     */
+    private LoaderOptions yamlOptions;
+
+    /**
+     * Compiled key projections of this execution.
+     */
+    private List<KeyProjection.Compiled> compiledKeyProjections;
+
+    /**
+     * Keys added or changed by this execution.
+     */
+    private final Set<String> changedKeys = new HashSet<>();
+
+    /**
+     * Parsed sources shared by all modules of the build.
+     */
+    private final ParsedSourceCache sourceCache;
+
+    /**
+     * Parsed sources kept from one build to the next.
+     */
+    private final WarmSourceCache warmSourceCache;
 
     /**
      * Default constructor
      *
-     * @param propertiesManagers list of properties managers
+     * @param propertiesManagers properties managers indexed by extension
+     * @param resolver shared property resolver
+     * @param sourceCache parsed sources shared by all modules of the build
+     * @param warmSourceCache parsed sources kept from one build to the next
      */
     @Inject
-    public ReadPropertiesMojo(List<PropertiesManager> propertiesManagers) {
+    public ReadPropertiesMojo(
+            PropertiesManagerRegistry propertiesManagers,
+            PropertyResolver resolver,
+            ParsedSourceCache sourceCache,
+            WarmSourceCache warmSourceCache) {
         super(propertiesManagers);
+        this.resolver = resolver;
+        this.sourceCache = sourceCache;
+        this.warmSourceCache = warmSourceCache;
+    }
+
+    /**
+     * @param propertiesManagers list of properties managers
+     * @param resolver shared property resolver
+     * @param sourceCache parsed sources shared by all modules of the build
+     * @param warmSourceCache parsed sources kept from one build to the next
+     */
+    public ReadPropertiesMojo(
+            List<PropertiesManager> propertiesManagers,
+            PropertyResolver resolver,
+            ParsedSourceCache sourceCache,
+            WarmSourceCache warmSourceCache) {
+        this(new PropertiesManagerRegistry(propertiesManagers), resolver, sourceCache, warmSourceCache);
+    }
+
+    /**
+     * Constructor sharing parsed sources only within this instance.
+     *
+     * @param propertiesManagers list of properties managers
+     * @param resolver shared property resolver
+     */
+    public ReadPropertiesMojo(List<PropertiesManager> propertiesManagers, PropertyResolver resolver) {
+        this(propertiesManagers, resolver, new ParsedSourceCache(), new WarmSourceCache());
     }
 
     /**
@@ -164,73 +579,543 @@ public class ReadPropertiesMojo extends AbstractPropertiesMojo {
     /** {@inheritDoc} */
     public void execute() throws MojoExecutionException, MojoFailureException {
         if (!skipLoadProperties) {
+            changedKeys.clear();
             checkParameters();
-            loadFiles();
-            loadUrls();
-            resolveProperties();
+            parseCache = useParseCache ? ParseCache.forProject(project) : null;
+            yamlDocumentSelector = createYamlDocumentSelector();
+            yamlOptions = createYamlOptions();
+            compiledKeyProjections = compileKeyProjections();
+            boolean lastExecution = isLastExecution();
+            boolean resolveNow = !lazyResolution && (!deferResolution || lastExecution);
+            try (ArchiveFileSystems archives = new ArchiveFileSystems()) {
+                List<Resource> resources = getResources(archives);
+                Path recordFile = null;
+                String fingerprint = null;
+                if (useInputFingerprint && resolveNow) {
+                    recordFile = InputFingerprint.recordFile(project, getExecutionId());
+                    fingerprint = fingerprint(resources);
+                    if (applyStoredResult(recordFile, fingerprint)) {
+                        return;
+                    }
+                }
+                Map<String, String> incoming =
+                        recordFile != null ? PropertyResolver.snapshot(project.getProperties()) : null;
+
+                load(resources);
+                if (archives.size() > 0) {
+                    getLog().debug("Read entries of " + archives.size() + " archives");
+                }
+                if (parseCache != null) {
+                    getLog().debug(parseCache.getStatistics());
+                    if (parseCache.getWriteFailure() != null) {
+                        getLog().warn(parseCache.getWriteFailure());
+                    }
+                }
+                getLog().debug(sourceCache.getStatistics());
+                if (keepSourcesWarm) {
+                    getLog().debug(warmSourceCache.getStatistics());
+                }
+
+                if (deferResolution && !lastExecution) {
+                    getPendingKeys().addAll(changedKeys);
+                    getLog().info("Resolving " + getPendingKeys().size()
+                            + " properties is deferred to a later execution of this goal, they stay unresolved if it"
+                            + " does not run");
+                } else if (lazyResolution) {
+                    resolvePropertiesLazily();
+                } else {
+                    Map<String, String> references = recordFile != null
+                            ? collectReferences(PropertyResolver.snapshot(project.getProperties()))
+                            : null;
+                    resolveProperties();
+                    if (recordFile != null) {
+                        storeResult(recordFile, fingerprint, references, incoming);
+                    }
+                }
+            } catch (IOException e) {
+                throw new MojoExecutionException("Error reading archive: " + e.getMessage(), e);
+            }
         } else {
             getLog().warn("The properties are ignored");
+            // a skipped execution still counts as run, so properties deferred to it are not left unresolved
+            changedKeys.clear();
+            if (isLastExecution() && !getPendingKeys().isEmpty()) {
+                resolveProperties();
+            }
+        }
+    }
+
+    private String getExecutionId() {
+        return mojoExecution != null ? mojoExecution.getExecutionId() : "default";
+    }
+
+    /**
+     * Fingerprint of everything the result of this execution depends on, except for system properties and environment
+     * variables, see {@link #collectReferences(Map)}.
+     */
+    private String fingerprint(List<Resource> resources) {
+        InputFingerprint fingerprint = new InputFingerprint()
+                .add("plugin", mojoExecution != null ? mojoExecution.getVersion() : null)
+                .add("keyPrefix", keyPrefix)
+                .add("keyProjections", keyProjections)
+                .add("override", override)
+                .add("quiet", quiet)
+                .add("useDefaultValues", useDefaultValues)
+                .add("encoding", getCharset().name())
+                .add("yamlDocumentSelector", yamlDocumentSelector)
+                .add("yamlOptions", YmlPropertiesManager.describe(yamlOptions))
+                .add("maxExpandedValueLength", maxExpandedValueLength)
+                .add("maxExpansionSteps", maxExpansionSteps)
+                .add("maxReferenceDepth", maxReferenceDepth)
+                .add("fingerprintProperty", fingerprintProperty)
+                .add("resources", resources.size());
+        for (Resource resource : resources) {
+            fingerprint.add(resource.toString(), resource.getValidator());
+        }
+        fingerprint.addAll("projectProperties", PropertyResolver.snapshot(project.getProperties()));
+        fingerprint.add("pendingKeys", new TreeSet<>(getPendingKeys()));
+        return fingerprint.toHex();
+    }
+
+    /**
+     * Apply the stored result of an earlier build with the same inputs.
+     *
+     * @return <code>true</code> when applied
+     */
+    private boolean applyStoredResult(Path recordFile, String fingerprint) {
+        InputFingerprint.Record record = InputFingerprint.Record.read(recordFile);
+        if (record == null || !record.getFingerprint().equals(fingerprint)) {
+            getLog().debug("Inputs changed, fingerprint " + fingerprint);
+            return false;
+        }
+        EnvironmentSnapshot environment = EnvironmentSnapshot.forSession(session);
+        for (Map.Entry<String, String> reference : record.getReferences().entrySet()) {
+            if (!Objects.equals(reference.getValue(), environment.getValue(reference.getKey()))) {
+                getLog().debug("Referenced property " + reference.getKey() + " changed");
+                return false;
+            }
+        }
+        Properties projectProperties = project.getProperties();
+        projectProperties.putAll(record.getOutput());
+        // the stored result was resolved completely
+        getPendingKeys().clear();
+        setResolvedState(new ResolvedState(environment, new HashMap<>(PropertyResolver.snapshot(projectProperties))));
+        getLog().info("Inputs unchanged, applied " + record.getOutput().size() + " stored properties");
+        return true;
+    }
+
+    /**
+     * System properties and environment variables referenced by placeholders, directly or through the values of other
+     * referenced ones, with their current values.
+     */
+    private Map<String, String> collectReferences(Map<String, String> properties) {
+        EnvironmentSnapshot environment = EnvironmentSnapshot.forSession(session);
+        Map<String, String> references = new TreeMap<>();
+        Deque<String> values = new ArrayDeque<>(properties.values());
+        Set<String> keys = new HashSet<>();
+        while (!values.isEmpty()) {
+            PropertyTemplate template = resolver.getTemplate(values.pop(), useDefaultValues);
+            if (!template.hasPlaceholders()) {
+                continue;
+            }
+            keys.clear();
+            template.collectKeys(keys);
+            for (String key : keys) {
+                if (!properties.containsKey(key) && !references.containsKey(key)) {
+                    String value = environment.getValue(key);
+                    references.put(key, value);
+                    if (value != null) {
+                        values.push(value);
+                    }
+                }
+            }
+        }
+        return references;
+    }
+
+    /**
+     * Store the project properties changed by this execution with the fingerprint of its inputs, and publish the
+     * fingerprint.
+     */
+    private void storeResult(
+            Path recordFile, String fingerprint, Map<String, String> references, Map<String, String> incoming) {
+        Properties projectProperties = project.getProperties();
+        // published with the referenced values, which are checked but not part of the stored fingerprint
+        projectProperties.setProperty(
+                fingerprintProperty,
+                new InputFingerprint()
+                        .add("inputs", fingerprint)
+                        .addAll("references", references)
+                        .toHex());
+        Map<String, String> output = new HashMap<>();
+        for (Map.Entry<String, String> entry :
+                PropertyResolver.snapshot(projectProperties).entrySet()) {
+            if (!entry.getValue().equals(incoming.get(entry.getKey()))) {
+                output.put(entry.getKey(), entry.getValue());
+            }
+        }
+        try {
+            new InputFingerprint.Record(fingerprint, references, output).write(recordFile);
+        } catch (IOException e) {
+            getLog().warn("Cannot store result for the next build: " + e.getMessage());
         }
     }
 
     private void checkParameters() throws MojoExecutionException {
-        if (files.length > 0 && urls.length > 0) {
+        if ((files.length > 0 || fileSets != null && !fileSets.isEmpty()) && urls.length > 0) {
             throw new MojoExecutionException(
                     "Set files or URLs but not both - otherwise " + "no order of precedence can be guaranteed");
         }
+        try {
+            getCharset();
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException("Unsupported encoding " + encoding, e);
+        }
     }
 
-    private void loadFiles() throws MojoExecutionException {
-        for (File file : files) {
-            load(new FileResource(file));
+    private YamlDocumentSelector createYamlDocumentSelector() {
+        if (yamlProfileKey == null || yamlProfileKey.trim().isEmpty()) {
+            return null;
+        }
+        List<String> profiles = new ArrayList<>();
+        if (yamlProfiles != null && !yamlProfiles.isEmpty()) {
+            profiles.addAll(yamlProfiles);
+        } else {
+            for (Profile profile : project.getActiveProfiles()) {
+                profiles.add(profile.getId());
+            }
         }
+        getLog().debug("Selecting YAML documents by " + yamlProfileKey.trim() + " for profiles " + profiles);
+        return new YamlDocumentSelector(yamlProfileKey.trim(), profiles);
     }
 
-    private void loadUrls() throws MojoExecutionException {
-        for (String url : urls) {
-            load(new UrlResource(url));
+    private LoaderOptions createYamlOptions() {
+        LoaderOptions options = new LoaderOptions();
+        options.setCodePointLimit(yamlCodePointLimit);
+        options.setMaxAliasesForCollections(yamlMaxAliasesForCollections);
+        options.setNestingDepthLimit(yamlNestingDepthLimit);
+        return options;
+    }
+
+    private List<KeyProjection.Compiled> compileKeyProjections() throws MojoExecutionException {
+        if (keyProjections == null || keyProjections.isEmpty()) {
+            return Collections.emptyList();
         }
+        List<KeyProjection.Compiled> compiled = new ArrayList<>(keyProjections.size());
+        for (KeyProjection projection : keyProjections) {
+            try {
+                compiled.add(projection.compile(keyPrefix));
+            } catch (IllegalArgumentException e) {
+                throw new MojoExecutionException(e.getMessage(), e);
+            }
+        }
+        return compiled;
     }
 
-    private void load(Resource resource) throws MojoExecutionException {
-        if (resource.canBeOpened()) {
-            loadProperties(resource);
-        } else {
-            missing(resource);
+    /**
+     * Assign the first matching key projection to the resource.
+     */
+    private Resource project(Resource resource) {
+        if (compiledKeyProjections.isEmpty()) {
+            return resource;
         }
+        String location = resource.getLocation();
+        File basedir = project.getBasedir();
+        if (basedir != null && location.startsWith(basedir.getPath() + File.separator)) {
+            location = location.substring(basedir.getPath().length() + 1);
+        }
+        location = location.replace('\\', '/');
+        for (KeyProjection.Compiled projection : compiledKeyProjections) {
+            if (projection.matches(location)) {
+                getLog().debug("Projecting keys of " + resource + " by " + projection);
+                resource.keyProjection = projection;
+                break;
+            }
+        }
+        return resource;
     }
 
-    private void loadProperties(Resource resource) throws MojoExecutionException {
-        try {
-            getLog().debug("Loading properties from " + resource);
+    private Charset getCharset() {
+        return encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+    }
+
+    /**
+     * @return the files, the files of the file sets and the URLs, in this order
+     */
+    private List<Resource> getResources(ArchiveFileSystems archives) throws MojoExecutionException, IOException {
+        List<Resource> resources = new ArrayList<>(files.length + urls.length);
+        for (File file : files) {
+            int entryIndex = ArchiveFileSystems.indexOfEntry(file);
+            if (entryIndex >= 0) {
+                File archive = new File(file.getPath().substring(0, entryIndex));
+                resources.add(project(new ArchiveEntryResource(file, archive, archives.getEntry(file, entryIndex))));
+            } else {
+                resources.add(project(new FileResource(file)));
+            }
+        }
+        for (File file : scanFileSets()) {
+            resources.add(project(new FileResource(file)));
+        }
+        if (urls.length > 0) {
+            HttpSourceClient client = new HttpSourceClient(
+                    urlConnectTimeout,
+                    urlReadTimeout,
+                    urlRetries,
+                    RETRY_BACKOFF_MILLIS,
+                    maxConnectionsPerHost,
+                    HttpSourceClient.permitsForSession(session));
+            RemoteResourceCache cache = getRemoteResourceCache(client);
+            Set<String> warnedHosts = new HashSet<>();
+            for (String url : urls) {
+                UrlResource resource = new UrlResource(url, client, cache);
+                checkConnectionLimit(client, resource.url, warnedHosts);
+                resources.add(project(resource));
+            }
+        }
+        return resources;
+    }
 
-            try (InputStream stream = resource.getInputStream()) {
-                String effectivePrefix = "";
-                if (keyPrefix != null) {
-                    effectivePrefix = keyPrefix;
+    private void checkConnectionLimit(HttpSourceClient client, URL url, Set<String> warnedHosts) {
+        if (url == null || !HttpSourceClient.isHttp(url)) {
+            return;
+        }
+        int limit = client.getPermitLimit(url);
+        if (limit != Math.max(1, maxConnectionsPerHost) && warnedHosts.add(url.getHost())) {
+            getLog().warn("maxConnectionsPerHost of " + maxConnectionsPerHost + " is ignored for " + url.getHost()
+                    + ", an earlier execution of this build already limited it to " + limit);
+        }
+    }
+
+    private List<File> scanFileSets() throws MojoExecutionException {
+        if (fileSets == null || fileSets.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<File> result = new ArrayList<>();
+        ForkJoinPool pool = loadThreads > 1 ? new ForkJoinPool(loadThreads) : null;
+        try {
+            FileSetScanner scanner = new FileSetScanner(pool);
+            for (FileSet fileSet : fileSets) {
+                if (fileSet.getDirectory() == null) {
+                    throw new MojoExecutionException("The directory of a file set is required");
+                }
+                File directory = new File(fileSet.getDirectory());
+                if (!directory.isAbsolute() && project.getBasedir() != null) {
+                    directory = new File(project.getBasedir(), fileSet.getDirectory());
                 }
+                if (!directory.isDirectory()) {
+                    missing(new FileResource(directory));
+                    continue;
+                }
+                List<File> files = scanner.scan(directory, fileSet.getIncludes(), fileSet.getExcludes());
+                getLog().debug("Found " + files.size() + " files in " + directory);
+                result.addAll(files);
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error scanning file sets", e);
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+        return result;
+    }
 
-                PropertiesManager manager = getPropertiesManager(resource.getResourceExtension());
-                Properties properties = manager.load(stream);
+    /**
+     * Read and parse the resources concurrently, then merge them into the project properties in the given order, so
+     * later resources take precedence as if they were loaded one after another.
+     */
+    private void load(List<Resource> resources) throws MojoExecutionException {
+        int threads = Math.min(loadThreads, resources.size());
+        if (threads <= 1) {
+            for (Resource resource : resources) {
+                merge(resource, read(resource));
+            }
+            return;
+        }
 
-                Properties projectProperties = project.getProperties();
-                Map<String, String> newProperties = new HashMap<>();
+        ExecutorService executor = newLoadExecutor(threads);
+        try {
+            List<Future<Map<String, String>>> results = new ArrayList<>(resources.size());
+            for (Resource resource : resources) {
+                results.add(executor.submit(() -> read(resource)));
+            }
+            for (int i = 0; i < resources.size(); i++) {
+                merge(resources.get(i), await(results.get(i)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-                for (String key : properties.stringPropertyNames()) {
-                    String propertyName = effectivePrefix + key;
-                    if (override || !projectProperties.containsKey(propertyName)) {
-                        newProperties.put(propertyName, properties.getProperty(key));
-                    }
-                }
-                // change project properties at one call
-                projectProperties.putAll(newProperties);
-                getLog().info("Loading " + newProperties.size() + " properties from " + resource);
+    private static Map<String, String> await(Future<Map<String, String>> result) throws MojoExecutionException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while loading properties", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MojoExecutionException) {
+                throw (MojoExecutionException) e.getCause();
+            }
+            throw new MojoExecutionException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Virtual threads when the JDK provides them, platform daemon threads otherwise.
+     */
+    private static ExecutorService newLoadExecutor(int threads) {
+        ThreadFactory factory;
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            factory = (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                    .getMethod("factory")
+                    .invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            factory = runnable -> {
+                Thread thread = new Thread(runnable, "properties-loader");
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+        return Executors.newFixedThreadPool(threads, factory);
+    }
+
+    /**
+     * @return parsed properties of the resource, <code>null</code> if it cannot be opened
+     */
+    private Map<String, String> read(Resource resource) throws MojoExecutionException {
+        try {
+            ContentDecoding decoding = ContentDecoding.of(resource.getFileName());
+            PropertiesManager manager = getPropertiesManager(decoding.getExtension());
+            Charset charset = getCharset();
+            String parserKey = manager.getClass().getName() + ":" + charset.name();
+            if (manager instanceof YmlPropertiesManager) {
+                // the selected documents are part of the result, and the limits whether there is one
+                parserKey += ":" + yamlDocumentSelector + ":" + YmlPropertiesManager.describe(yamlOptions);
             }
+            if (decoding.isEncoded()) {
+                parserKey += ":" + decoding;
+            }
+            KeyMapper keyMapper = KeyMapper.IDENTITY;
+            if (resource.keyProjection != null) {
+                keyMapper = resource.keyProjection;
+                parserKey += ":" + keyMapper;
+            }
+            String identity = resource.getIdentity();
+            if (identity == null) {
+                return read(resource, decoding, manager, charset, keyMapper, parserKey);
+            }
+            String key = identity + '\0' + parserKey;
+            String effectiveParserKey = parserKey;
+            KeyMapper effectiveKeyMapper = keyMapper;
+            ParsedSourceCache.Loader loader =
+                    () -> read(resource, decoding, manager, charset, effectiveKeyMapper, effectiveParserKey);
+            if (keepSourcesWarm && resource.isFingerprinted()) {
+                return sourceCache.get(key, () -> readWarm(key, loader));
+            }
+            return sourceCache.get(key, loader);
         } catch (IOException e) {
             throw new MojoExecutionException("Error reading properties from " + resource, e);
         }
     }
 
+    private Map<String, String> readWarm(String key, ParsedSourceCache.Loader loader) throws IOException {
+        Map<String, String> properties = warmSourceCache.get(key);
+        if (properties == null) {
+            properties = loader.load();
+            if (properties != null) {
+                properties = Collections.unmodifiableMap(properties);
+                warmSourceCache.put(key, properties, warmSourcesMaxProperties);
+            }
+        }
+        return properties;
+    }
+
+    private Map<String, String> read(
+            Resource resource,
+            ContentDecoding decoding,
+            PropertiesManager manager,
+            Charset charset,
+            KeyMapper keyMapper,
+            String parserKey)
+            throws IOException {
+        if (!resource.canBeOpened()) {
+            return null;
+        }
+        getLog().debug("Loading properties from " + resource);
+        if (resource instanceof FileResource) {
+            Path file = ((FileResource) resource).file.toPath();
+            ParseCache.Parser parser = decoding.isEncoded()
+                    ? path -> parse(decoding, manager, path, charset, keyMapper)
+                    : path -> parse(manager, path, charset, keyMapper);
+            if (parseCache != null) {
+                return parseCache.load(file, parserKey, parser);
+            }
+            return parser.parse(file);
+        }
+        try (InputStream stream = decoding.decode(resource.getInputStream())) {
+            return parse(manager, stream, charset, keyMapper);
+        }
+    }
+
+    private Map<String, String> parse(
+            ContentDecoding decoding, PropertiesManager manager, Path file, Charset charset, KeyMapper keyMapper)
+            throws IOException {
+        try (InputStream in = decoding.decode(new BufferedInputStream(Files.newInputStream(file)))) {
+            return parse(manager, in, charset, keyMapper);
+        }
+    }
+
+    private Map<String, String> parse(PropertiesManager manager, Path file, Charset charset, KeyMapper keyMapper)
+            throws IOException {
+        if (manager instanceof YmlPropertiesManager) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+                return parse(manager, in, charset, keyMapper);
+            }
+        }
+        // without projection the plain methods, which managers may override alone
+        return keyMapper == KeyMapper.IDENTITY ? manager.load(file, charset) : manager.load(file, charset, keyMapper);
+    }
+
+    private Map<String, String> parse(PropertiesManager manager, InputStream in, Charset charset, KeyMapper keyMapper)
+            throws IOException {
+        if (manager instanceof YmlPropertiesManager) {
+            return ((YmlPropertiesManager) manager).load(in, yamlDocumentSelector, yamlOptions, keyMapper);
+        }
+        return keyMapper == KeyMapper.IDENTITY ? manager.load(in, charset) : manager.load(in, charset, keyMapper);
+    }
+
+    private void merge(Resource resource, Map<String, String> properties) throws MojoExecutionException {
+        if (properties == null) {
+            missing(resource);
+            return;
+        }
+        String effectivePrefix = "";
+        // a key projection adds its prefix while parsing
+        if (keyPrefix != null && resource.keyProjection == null) {
+            effectivePrefix = keyPrefix;
+        }
+
+        Properties projectProperties = project.getProperties();
+        Map<String, String> newProperties = new HashMap<>();
+
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            String propertyName = effectivePrefix + property.getKey();
+            if (override || !projectProperties.containsKey(propertyName)) {
+                String value = property.getValue();
+                newProperties.put(propertyName, value);
+                // reading the old value would resolve it when resolving lazily
+                if (!lazyResolution && !value.equals(projectProperties.getProperty(propertyName))) {
+                    changedKeys.add(propertyName);
+                }
+            }
+        }
+        // change project properties at one call
+        projectProperties.putAll(newProperties);
+        getLog().info("Loading " + newProperties.size() + " properties from " + resource);
+    }
+
     private void missing(Resource resource) throws MojoExecutionException {
         if (quiet) {
             getLog().info("Quiet processing - ignoring properties cannot be loaded from " + resource);
@@ -241,16 +1126,41 @@ public class ReadPropertiesMojo extends AbstractPropertiesMojo {
 
     private void resolveProperties() throws MojoExecutionException, MojoFailureException {
         getLog().debug("resolve properties");
-        Properties environment = loadSystemEnvironmentPropertiesWhenDefined();
+        // keys loaded by deferred executions are resolved now
+        changedKeys.addAll(getPendingKeys());
+        getPendingKeys().clear();
         Properties projectProperties = project.getProperties();
 
+        Map<String, String> snapshot = PropertyResolver.snapshot(projectProperties);
         Map<String, String> newProperties = new HashMap<>();
 
-        for (String key : projectProperties.stringPropertyNames()) {
-            String newValue = getPropertyValue(key, projectProperties, environment);
-            String oldValue = projectProperties.getProperty(key);
-            if (!Objects.equals(newValue, oldValue)) {
-                newProperties.put(key, newValue);
+        // resolved values are shared between all keys of this run
+        PropertyResolution resolution = newResolution(snapshot);
+
+        Collection<String> keys = snapshot.keySet();
+        EnvironmentSnapshot environment = EnvironmentSnapshot.forSession(session);
+        ResolvedState resolved = getResolvedState();
+        if (resolved != null && !resolved.environment.hasSameValues(environment)) {
+            getLog().debug("System properties changed since the last resolution, resolving all properties");
+        } else if (resolved != null) {
+            // an earlier execution resolved this project, only changed keys and keys depending on them can change
+            Set<String> dirtyKeys = new HashSet<>(changedKeys);
+            for (Map.Entry<String, String> entry : snapshot.entrySet()) {
+                String value = entry.getValue();
+                // changed outside of this goal, or left unresolved by the last resolution
+                if (!value.equals(resolved.values.get(entry.getKey()))
+                        || resolver.getTemplate(value, useDefaultValues).hasPlaceholders()) {
+                    dirtyKeys.add(entry.getKey());
+                }
+            }
+            keys = resolution.withDependents(dirtyKeys);
+            getLog().info("Re-resolving " + keys.size() + " of " + snapshot.size() + " properties");
+        }
+
+        for (Map.Entry<String, String> entry : resolve(keys, resolution).entrySet()) {
+            String oldValue = snapshot.get(entry.getKey());
+            if (!Objects.equals(entry.getValue(), oldValue)) {
+                newProperties.put(entry.getKey(), entry.getValue());
             }
         }
 
@@ -261,48 +1171,147 @@ public class ReadPropertiesMojo extends AbstractPropertiesMojo {
         } else {
             getLog().debug("all properties was resolved");
         }
+        getLog().debug(resolver.getCacheStatistics());
+        Map<String, String> resolvedValues = new HashMap<>(snapshot);
+        resolvedValues.putAll(newProperties);
+        setResolvedState(new ResolvedState(environment, resolvedValues));
         getLog().debug("resolve properties - done");
     }
 
-    private Properties loadSystemEnvironmentPropertiesWhenDefined() throws MojoExecutionException {
+    private void resolvePropertiesLazily() throws MojoFailureException {
         Properties projectProperties = project.getProperties();
+        LazyResolvingProperties lazyProperties;
+        if (projectProperties instanceof LazyResolvingProperties) {
+            lazyProperties = (LazyResolvingProperties) projectProperties;
+        } else {
+            lazyProperties = new LazyResolvingProperties(this::newResolution);
+            lazyProperties.putAll(projectProperties);
+            project.getModel().setProperties(lazyProperties);
+        }
+        lazyProperties.markAllUnresolved();
+        getPendingKeys().clear();
+        try {
+            lazyProperties.verify();
+        } catch (IllegalArgumentException e) {
+            throw new MojoFailureException(e.getMessage());
+        }
+        getLog().debug(lazyProperties.getUnresolvedCount() + " properties will be resolved when first read");
+    }
 
-        boolean useEnvVariables = false;
-        for (Enumeration<?> n = projectProperties.propertyNames(); n.hasMoreElements(); ) {
-            String k = (String) n.nextElement();
-            String p = (String) projectProperties.get(k);
-            if (p.contains("${env.")) {
-                useEnvVariables = true;
-                break;
-            }
+    /**
+     * Record this execution as done and check if any other execution of this goal configured in the module is left.
+     */
+    boolean isLastExecution() {
+        if (mojoExecution == null) {
+            return true;
         }
-        Properties environment = null;
-        if (useEnvVariables) {
-            try {
-                environment = getSystemEnvVars();
-            } catch (IOException e) {
-                throw new MojoExecutionException("Error getting system environment variables: ", e);
+        return isLastExecution(
+                Plugin.constructKey(mojoExecution.getGroupId(), mojoExecution.getArtifactId()),
+                mojoExecution.getGoal(),
+                mojoExecution.getExecutionId());
+    }
+
+    /**
+     * Record the execution as done and check whether all executions of the goal configured in the project are done.
+     *
+     * @param pluginKey key of this plugin
+     * @param goal goal being executed
+     * @param executionId id of the running execution
+     * @return <code>true</code> when no other configured execution of the goal is still to come
+     */
+    boolean isLastExecution(String pluginKey, String goal, String executionId) {
+        Plugin plugin = project.getPlugin(pluginKey);
+        if (plugin == null) {
+            return true;
+        }
+        Set<String> executionIds = new HashSet<>();
+        for (PluginExecution execution : plugin.getExecutions()) {
+            // without a phase the goal is not bound, its default phase is none
+            String phase = execution.getPhase();
+            if (execution.getGoals().contains(goal) && phase != null && !"none".equals(phase)) {
+                executionIds.add(execution.getId());
             }
         }
-        return environment;
+        if (!executionIds.contains(executionId)) {
+            // not configured in the module, like an invocation from the command line
+            return true;
+        }
+        Set<String> executed = getContextSet(EXECUTED_CONTEXT_KEY);
+        executed.add(executionId);
+        return executed.containsAll(executionIds);
+    }
+
+    private Set<String> getPendingKeys() {
+        return getContextSet(PENDING_KEYS_CONTEXT_KEY);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> getContextSet(String key) {
+        Set<String> set = (Set<String>) project.getContextValue(key);
+        if (set == null) {
+            set = new HashSet<>();
+            project.setContextValue(key, set);
+        }
+        return set;
+    }
+
+    private PropertyResolution newResolution(Map<String, String> snapshot) {
+        PropertyResolution resolution =
+                resolver.newResolution(snapshot, EnvironmentSnapshot.forSession(session), useDefaultValues);
+        resolution.setLimits(maxExpandedValueLength, maxExpansionSteps, maxReferenceDepth);
+        return resolution;
+    }
+
+    private ResolvedState getResolvedState() {
+        return (ResolvedState) project.getContextValue(RESOLVED_STATE_CONTEXT_KEY + useDefaultValues);
+    }
+
+    private void setResolvedState(ResolvedState state) {
+        project.setContextValue(RESOLVED_STATE_CONTEXT_KEY + useDefaultValues, state);
+    }
+
+    /**
+     * Project properties as left by the last resolution of the project, and the system properties and environment
+     * variables they were resolved with.
+     */
+    private static final class ResolvedState {
+        private final EnvironmentSnapshot environment;
+
+        private final Map<String, String> values;
+
+        ResolvedState(EnvironmentSnapshot environment, Map<String, String> values) {
+            this.environment = environment;
+            this.values = values;
+        }
     }
 
-    private String getPropertyValue(String k, Properties p, Properties environment) throws MojoFailureException {
+    private Map<String, String> resolve(Collection<String> keys, PropertyResolution resolution)
+            throws MojoFailureException {
+        int threads = getResolutionThreads();
+        ForkJoinPool pool = null;
+        if (threads > 1) {
+            getLog().debug("resolve properties using " + threads + " threads");
+            pool = new ForkJoinPool(threads);
+        }
         try {
-            return resolver.getPropertyValue(k, p, environment, useDefaultValues);
+            return resolution.resolve(keys, pool);
         } catch (IllegalArgumentException e) {
             throw new MojoFailureException(e.getMessage());
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
         }
     }
 
-    /**
-     * Override-able for test purposes.
-     *
-     * @return The shell environment variables, can be empty but never <code>null</code>.
-     * @throws IOException If the environment variables could not be queried from the shell.
-     */
-    Properties getSystemEnvVars() throws IOException {
-        return CommandLineUtils.getSystemEnvVars();
+    private int getResolutionThreads() {
+        if (!parallelResolution) {
+            return 1;
+        }
+        if (resolutionThreads > 0) {
+            return resolutionThreads;
+        }
+        return session != null ? session.getRequest().getDegreeOfConcurrency() : 1;
     }
 
     /**
@@ -312,14 +1321,98 @@ public class ReadPropertiesMojo extends AbstractPropertiesMojo {
         this.useDefaultValues = useDefaultValues;
     }
 
+    void setLoadThreads(int loadThreads) {
+        this.loadThreads = loadThreads;
+    }
+
+    void setRemoteResourceCache(RemoteResourceCache remoteResourceCache) {
+        this.remoteResourceCache = remoteResourceCache;
+    }
+
+    void setCacheRemoteResources(boolean cacheRemoteResources) {
+        this.cacheRemoteResources = cacheRemoteResources;
+    }
+
+    void setUrlRetries(int urlRetries) {
+        this.urlRetries = urlRetries;
+    }
+
+    void setUseParseCache(boolean useParseCache) {
+        this.useParseCache = useParseCache;
+    }
+
+    void setYamlProfileKey(String yamlProfileKey) {
+        this.yamlProfileKey = yamlProfileKey;
+    }
+
+    void setYamlProfiles(List<String> yamlProfiles) {
+        this.yamlProfiles = yamlProfiles;
+    }
+
+    void setYamlCodePointLimit(int yamlCodePointLimit) {
+        this.yamlCodePointLimit = yamlCodePointLimit;
+    }
+
+    void setFileSets(List<FileSet> fileSets) {
+        this.fileSets = fileSets;
+    }
+
+    void setKeepSourcesWarm(boolean keepSourcesWarm) {
+        this.keepSourcesWarm = keepSourcesWarm;
+    }
+
+    void setUseInputFingerprint(boolean useInputFingerprint) {
+        this.useInputFingerprint = useInputFingerprint;
+    }
+
+    void setEncoding(String encoding) {
+        this.encoding = encoding;
+    }
+
     void setKeyPrefix(String keyPrefix) {
         this.keyPrefix = keyPrefix;
     }
 
+    void setKeyProjections(List<KeyProjection> keyProjections) {
+        this.keyProjections = keyProjections;
+    }
+
     void setOverride(boolean override) {
         this.override = override;
     }
 
+    void setMaxExpansionSteps(long maxExpansionSteps) {
+        this.maxExpansionSteps = maxExpansionSteps;
+    }
+
+    void setMaxExpandedValueLength(int maxExpandedValueLength) {
+        this.maxExpandedValueLength = maxExpandedValueLength;
+    }
+
+    void setMaxReferenceDepth(int maxReferenceDepth) {
+        this.maxReferenceDepth = maxReferenceDepth;
+    }
+
+    void setSkipLoadProperties(boolean skipLoadProperties) {
+        this.skipLoadProperties = skipLoadProperties;
+    }
+
+    void setDeferResolution(boolean deferResolution) {
+        this.deferResolution = deferResolution;
+    }
+
+    void setLazyResolution(boolean lazyResolution) {
+        this.lazyResolution = lazyResolution;
+    }
+
+    void setParallelResolution(boolean parallelResolution) {
+        this.parallelResolution = parallelResolution;
+    }
+
+    void setResolutionThreads(int resolutionThreads) {
+        this.resolutionThreads = resolutionThreads;
+    }
+
     /**
      * Default scope for test access.
      *
@@ -340,12 +1433,62 @@ public class ReadPropertiesMojo extends AbstractPropertiesMojo {
     private abstract static class Resource {
         private InputStream stream;
 
-        public abstract String getResourceExtension();
+        /**
+         * Key projection applied while parsing, <code>null</code> for none.
+         */
+        private KeyProjection.Compiled keyProjection;
+
+        /**
+         * @return name of the file or last segment of the URL path, its extensions select manager and decoding
+         */
+        public abstract String getFileName();
+
+        /**
+         * @return path of the file or classpath resource, or the URL, matched by key projections
+         */
+        public abstract String getLocation();
 
         public abstract boolean canBeOpened();
 
         protected abstract InputStream openStream() throws IOException;
 
+        /**
+         * @return identity of the content for sharing parsed results between modules, <code>null</code> when the
+         *         result is not shared
+         */
+        public abstract String getIdentity();
+
+        /**
+         * @return <code>true</code> when the identity includes size and modification time of the content, so parsed
+         *         results stay valid across builds
+         */
+        public abstract boolean isFingerprinted();
+
+        /**
+         * @return the identity when fingerprinted, a hash of the content otherwise
+         */
+        public String getValidator() {
+            String identity = getIdentity();
+            if (identity == null || isFingerprinted()) {
+                return identity;
+            }
+            // the content is read once, loading reads the same bytes again, so a URL is not fetched twice
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            try (InputStream in = getInputStream()) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    content.write(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                stream = null;
+                return "unavailable";
+            }
+            byte[] bytes = content.toByteArray();
+            stream = new ByteArrayInputStream(bytes);
+            return ParseCache.digestToHex(ParseCache.newDigest().digest(bytes));
+        }
+
         public InputStream getInputStream() throws IOException {
             if (stream == null) {
                 stream = openStream();
@@ -354,6 +1497,29 @@ public class ReadPropertiesMojo extends AbstractPropertiesMojo {
         }
     }
 
+    /**
+     * @return location, size and modification time of the file, <code>null</code> when it does not exist
+     */
+    private static String fingerprint(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return file.toAbsolutePath() + ":" + attributes.size() + ":"
+                    + attributes.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private RemoteResourceCache getRemoteResourceCache(HttpSourceClient client) {
+        if (!cacheRemoteResources) {
+            return null;
+        }
+        if (remoteResourceCache != null) {
+            return remoteResourceCache;
+        }
+        return RemoteResourceCache.forSession(session, client);
+    }
+
     private static class FileResource extends Resource {
         private final File file;
 
@@ -362,8 +1528,13 @@ public class ReadPropertiesMojo extends AbstractPropertiesMojo {
         }
 
         @Override
-        public String getResourceExtension() {
-            return FileUtils.extension(file.getName());
+        public String getFileName() {
+            return file.getName();
+        }
+
+        @Override
+        public String getLocation() {
+            return file.getPath();
         }
 
         @Override
@@ -371,6 +1542,16 @@ public class ReadPropertiesMojo extends AbstractPropertiesMojo {
             return file.exists();
         }
 
+        @Override
+        public String getIdentity() {
+            return fingerprint(file.toPath());
+        }
+
+        @Override
+        public boolean isFingerprinted() {
+            return true;
+        }
+
         @Override
         protected InputStream openStream() throws IOException {
             return new BufferedInputStream(Files.newInputStream(file.toPath()));
@@ -382,6 +1563,57 @@ public class ReadPropertiesMojo extends AbstractPropertiesMojo {
         }
     }
 
+    private static class ArchiveEntryResource extends Resource {
+        private final File file;
+
+        private final File archive;
+
+        private final Path entry;
+
+        ArchiveEntryResource(File file, File archive, Path entry) {
+            this.file = file;
+            this.archive = archive;
+            this.entry = entry;
+        }
+
+        @Override
+        public String getFileName() {
+            Path name = entry.getFileName();
+            return name != null ? name.toString() : "";
+        }
+
+        @Override
+        public String getLocation() {
+            return file.getPath();
+        }
+
+        @Override
+        public boolean canBeOpened() {
+            return Files.isRegularFile(entry);
+        }
+
+        @Override
+        public String getIdentity() {
+            String fingerprint = fingerprint(archive.toPath());
+            return fingerprint != null ? fingerprint + "!" + entry : null;
+        }
+
+        @Override
+        public boolean isFingerprinted() {
+            return true;
+        }
+
+        @Override
+        protected InputStream openStream() throws IOException {
+            return new BufferedInputStream(Files.newInputStream(entry));
+        }
+
+        @Override
+        public String toString() {
+            return "Archive entry: " + file;
+        }
+    }
+
     private static class UrlResource extends Resource {
         private static final String CLASSPATH_PREFIX = "classpath:";
 
@@ -389,22 +1621,32 @@ public class ReadPropertiesMojo extends AbstractPropertiesMojo {
 
         private final URL url;
 
+        private final String location;
+
         private boolean isMissingClasspathResouce = false;
 
         private String classpathUrl;
 
-        UrlResource(String url) throws MojoExecutionException {
+        private final HttpSourceClient client;
+
+        private final RemoteResourceCache cache;
+
+        UrlResource(String url, HttpSourceClient client, RemoteResourceCache cache) throws MojoExecutionException {
+            this.client = client;
+            this.cache = cache;
             if (url.startsWith(CLASSPATH_PREFIX)) {
                 String resource = url.substring(CLASSPATH_PREFIX.length());
                 if (resource.startsWith(SLASH_PREFIX)) {
                     resource = resource.substring(1);
                 }
+                this.location = resource;
                 this.url = getClass().getClassLoader().getResource(resource);
                 if (this.url == null) {
                     isMissingClasspathResouce = true;
                     classpathUrl = url;
                 }
             } else {
+                this.location = url;
                 try {
                     this.url = new URL(url);
                 } catch (MalformedURLException e) {
@@ -414,8 +1656,14 @@ public class ReadPropertiesMojo extends AbstractPropertiesMojo {
         }
 
         @Override
-        public String getResourceExtension() {
-            return FileUtils.extension(url.getFile());
+        public String getFileName() {
+            String path = isMissingClasspathResouce ? classpathUrl : url.getPath();
+            return path.substring(path.lastIndexOf('/') + 1);
+        }
+
+        @Override
+        public String getLocation() {
+            return location;
         }
 
         @Override
@@ -424,15 +1672,39 @@ public class ReadPropertiesMojo extends AbstractPropertiesMojo {
                 return false;
             }
             try {
-                openStream();
+                // the stream opened here is the one read later
+                getInputStream();
             } catch (IOException e) {
                 return false;
             }
             return true;
         }
 
+        @Override
+        public String getIdentity() {
+            if (isMissingClasspathResouce) {
+                return null;
+            }
+            if ("file".equals(url.getProtocol())) {
+                try {
+                    return fingerprint(Paths.get(url.toURI()));
+                } catch (URISyntaxException | IllegalArgumentException e) {
+                    return null;
+                }
+            }
+            return url.toString();
+        }
+
+        @Override
+        public boolean isFingerprinted() {
+            return "file".equals(url.getProtocol());
+        }
+
         @Override
         protected InputStream openStream() throws IOException {
+            if (HttpSourceClient.isHttp(url)) {
+                return new ByteArrayInputStream(cache != null ? cache.fetch(url) : client.fetch(url));
+            }
             return new BufferedInputStream(url.openStream());
         }
 
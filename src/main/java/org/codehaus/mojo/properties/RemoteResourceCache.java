@@ -0,0 +1,185 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.RepositorySystemSession;
+
+/**
+ * Local copies of remote property sources, kept in plain text in <code>.cache/properties-maven-plugin</code> below
+ * the local repository, usually <code>~/.m2/repository</code>.
+ * <p>
+ * A cached copy is revalidated with <code>If-None-Match</code> and <code>If-Modified-Since</code>, so an unchanged
+ * source is not downloaded again. When Maven runs offline cached copies are used as they are and sources which were
+ * never downloaded cannot be read.
+ */
+final class RemoteResourceCache {
+
+    private static final String CACHE_DIRECTORY = ".cache/properties-maven-plugin";
+
+    private static final String URL_KEY = "url";
+
+    private static final String ETAG_KEY = "etag";
+
+    private static final String LAST_MODIFIED_KEY = "lastModified";
+
+    private final Path directory;
+
+    private final boolean offline;
+
+    private final HttpSourceClient client;
+
+    /**
+     * @param directory directory holding the cached copies
+     * @param offline <code>true</code> to never connect
+     * @param client used to download and revalidate copies
+     */
+    RemoteResourceCache(Path directory, boolean offline, HttpSourceClient client) {
+        this.directory = directory;
+        this.offline = offline;
+        this.client = client;
+    }
+
+    /**
+     * @param session current session, may be <code>null</code>
+     * @param client used to download and revalidate copies
+     * @return cache below the local repository of the session, <code>null</code> without a local repository
+     */
+    static RemoteResourceCache forSession(MavenSession session, HttpSourceClient client) {
+        RepositorySystemSession repositorySession = session != null ? session.getRepositorySession() : null;
+        if (repositorySession == null || repositorySession.getLocalRepository() == null) {
+            return null;
+        }
+        File basedir = repositorySession.getLocalRepository().getBasedir();
+        return new RemoteResourceCache(basedir.toPath().resolve(CACHE_DIRECTORY), session.isOffline(), client);
+    }
+
+    /**
+     * Get the content of a source, downloading it only when the cached copy is missing or outdated.
+     *
+     * @param url location of an HTTP source
+     * @return content of the source
+     * @throws IOException when the source cannot be read and no usable copy is cached
+     */
+    byte[] fetch(URL url) throws IOException {
+        String name = fileName(url);
+        Path content = directory.resolve(name);
+        Path metadataFile = directory.resolve(name + ".properties");
+        Properties metadata = readMetadata(metadataFile, url);
+        boolean cached = metadata != null && Files.isRegularFile(content);
+
+        if (offline) {
+            if (!cached) {
+                throw new IOException("Not available in offline mode, never downloaded: " + url);
+            }
+            return Files.readAllBytes(content);
+        }
+
+        Map<String, String> headers = new HashMap<>();
+        if (cached) {
+            String etag = metadata.getProperty(ETAG_KEY);
+            if (etag != null) {
+                headers.put("If-None-Match", etag);
+            }
+            String lastModified = metadata.getProperty(LAST_MODIFIED_KEY);
+            if (lastModified != null) {
+                headers.put("If-Modified-Since", lastModified);
+            }
+        }
+
+        HttpSourceClient.Response response = client.get(url, headers);
+        if (response.getStatus() == HttpURLConnection.HTTP_NOT_MODIFIED && cached) {
+            return Files.readAllBytes(content);
+        }
+        if (response.getStatus() != HttpURLConnection.HTTP_OK) {
+            throw new IOException("Server returned HTTP " + response.getStatus() + " for " + url);
+        }
+        store(content, metadataFile, url, response);
+        return response.getBody();
+    }
+
+    private static Properties readMetadata(Path metadataFile, URL url) {
+        if (!Files.isRegularFile(metadataFile)) {
+            return null;
+        }
+        Properties metadata = new Properties();
+        try (InputStream in = Files.newInputStream(metadataFile)) {
+            metadata.load(in);
+        } catch (IOException e) {
+            return null;
+        }
+        // guard against hash collisions and files written by something else
+        return url.toExternalForm().equals(metadata.getProperty(URL_KEY)) ? metadata : null;
+    }
+
+    private void store(Path content, Path metadataFile, URL url, HttpSourceClient.Response response)
+            throws IOException {
+        Properties metadata = new Properties();
+        metadata.setProperty(URL_KEY, url.toExternalForm());
+        String etag = response.getEtag();
+        if (etag != null) {
+            metadata.setProperty(ETAG_KEY, etag);
+        }
+        String lastModified = response.getLastModified();
+        if (lastModified != null) {
+            metadata.setProperty(LAST_MODIFIED_KEY, lastModified);
+        }
+
+        Files.createDirectories(directory);
+        // content first, a copy is only used once its metadata exists
+        Path contentTemp = Files.createTempFile(directory, content.getFileName().toString(), ".tmp");
+        Files.write(contentTemp, response.getBody());
+        move(contentTemp, content);
+        Path metadataTemp =
+                Files.createTempFile(directory, metadataFile.getFileName().toString(), ".tmp");
+        try (OutputStream out = Files.newOutputStream(metadataTemp)) {
+            metadata.store(out, null);
+        }
+        move(metadataTemp, metadataFile);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String fileName(URL url) {
+        return ParseCache.digestToHex(
+                ParseCache.newDigest().digest(url.toExternalForm().getBytes(StandardCharsets.UTF_8)));
+    }
+}
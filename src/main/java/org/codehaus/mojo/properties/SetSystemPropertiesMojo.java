@@ -22,6 +22,7 @@ package org.codehaus.mojo.properties;
 import java.util.Enumeration;
 import java.util.Properties;
 
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -46,6 +47,9 @@ public class SetSystemPropertiesMojo extends AbstractMojo {
     @Parameter(required = true)
     private Properties properties;
 
+    @Parameter(defaultValue = "${session}", readonly = true, required = true)
+    private MavenSession session;
+
     // Mojo methods -----------------------------------------------------------
 
     @Override
@@ -67,6 +71,9 @@ public class SetSystemPropertiesMojo extends AbstractMojo {
             System.setProperty(propertyName, propertyValue);
         }
 
+        // placeholders resolved from now on must see the new values
+        EnvironmentSnapshot.invalidate(session);
+
         int count = properties.size();
 
         getLog().info("Set " + count + " system " + (count > 1 ? "properties" : "property"));
@@ -0,0 +1,92 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parsed property sources kept from one build to the next while the plugin stays loaded, like in a Maven daemon.
+ * <p>
+ * Only sources identified by their location, size and modification time are kept, so a changed source gets another
+ * key and is parsed again. The least recently used sources are dropped when the total number of properties exceeds the
+ * limit given by the latest build.
+ */
+@Named
+@Singleton
+public final class WarmSourceCache {
+
+    private final LinkedHashMap<String, Map<String, String>> sources = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long size;
+
+    private long hits;
+
+    private long misses;
+
+    /**
+     * @param key identity of the source and the parser
+     * @return read-only parsed properties, <code>null</code> when not cached
+     */
+    synchronized Map<String, String> get(String key) {
+        Map<String, String> properties = sources.get(key);
+        if (properties != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return properties;
+    }
+
+    /**
+     * @param key identity of the source and the parser
+     * @param properties read-only parsed properties
+     * @param maxSize maximum total number of properties kept
+     */
+    synchronized void put(String key, Map<String, String> properties, long maxSize) {
+        Map<String, String> previous = sources.put(key, properties);
+        if (previous != null) {
+            size -= weight(previous);
+        }
+        size += weight(properties);
+        Iterator<Map<String, String>> eldest = sources.values().iterator();
+        while (size > maxSize && eldest.hasNext()) {
+            size -= weight(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    private static long weight(Map<String, String> properties) {
+        // empty sources still take an entry
+        return properties.size() + 1L;
+    }
+
+    /**
+     * @return description of the kept sources, hits and misses
+     */
+    synchronized String getStatistics() {
+        return "warm source cache: " + sources.size() + " sources, " + size + " properties, " + hits + " hits, "
+                + misses + " misses";
+    }
+}
@@ -43,9 +43,16 @@ public class WriteActiveProfileProperties extends AbstractWritePropertiesMojo {
     /**
      * Default constructor
      *
-     * @param propertiesManagers list of properties managers
+     * @param propertiesManagers properties managers indexed by extension
      */
     @Inject
+    protected WriteActiveProfileProperties(PropertiesManagerRegistry propertiesManagers) {
+        super(propertiesManagers);
+    }
+
+    /**
+     * @param propertiesManagers list of properties managers
+     */
     protected WriteActiveProfileProperties(List<PropertiesManager> propertiesManagers) {
         super(propertiesManagers);
     }
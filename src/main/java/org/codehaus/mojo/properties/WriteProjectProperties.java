@@ -61,9 +61,16 @@ public class WriteProjectProperties extends AbstractWritePropertiesMojo {
     /**
      * Default constructor
      *
-     * @param propertiesManagers list of properties managers
+     * @param propertiesManagers properties managers indexed by extension
      */
     @Inject
+    protected WriteProjectProperties(PropertiesManagerRegistry propertiesManagers) {
+        super(propertiesManagers);
+    }
+
+    /**
+     * @param propertiesManagers list of properties managers
+     */
     protected WriteProjectProperties(List<PropertiesManager> propertiesManagers) {
         super(propertiesManagers);
     }
@@ -71,8 +78,14 @@ public class WriteProjectProperties extends AbstractWritePropertiesMojo {
     @Override
     public void execute() throws MojoExecutionException {
         validateOutputFile();
+        Properties projectProperties = getProject().getProperties();
+        if (projectProperties instanceof LazyResolvingProperties) {
+            // all properties are written, resolve the ones not read so far
+            materialize((LazyResolvingProperties) projectProperties);
+        }
+
         Properties projProperties = new Properties();
-        projProperties.putAll(getProject().getProperties());
+        projProperties.putAll(projectProperties);
 
         Properties systemProperties = System.getProperties();
 
@@ -97,6 +110,14 @@ public class WriteProjectProperties extends AbstractWritePropertiesMojo {
         writeProperties(projProperties);
     }
 
+    private void materialize(LazyResolvingProperties properties) throws MojoExecutionException {
+        try {
+            properties.materialize();
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+
     /**
      * Default scope for test access.
      */
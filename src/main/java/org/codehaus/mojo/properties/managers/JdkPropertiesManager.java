@@ -4,6 +4,7 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -11,10 +12,15 @@ import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 /**
@@ -38,6 +44,36 @@ public class JdkPropertiesManager implements PropertiesManager {
         return properties;
     }
 
+    @Override
+    public Map<String, String> load(InputStream in, Charset charset) throws IOException {
+        return load(in, charset, KeyMapper.IDENTITY);
+    }
+
+    @Override
+    public Map<String, String> load(InputStream in, Charset charset, KeyMapper keyMapper) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            content.write(buffer, 0, read);
+        }
+        Map<String, String> properties = new LinkedHashMap<>();
+        PropertiesParser.parse(ByteBuffer.wrap(content.toByteArray()), charset, keyMapper, properties);
+        return properties;
+    }
+
+    @Override
+    public Map<String, String> load(Path file, Charset charset) throws IOException {
+        return load(file, charset, KeyMapper.IDENTITY);
+    }
+
+    @Override
+    public Map<String, String> load(Path file, Charset charset, KeyMapper keyMapper) throws IOException {
+        Map<String, String> properties = new LinkedHashMap<>();
+        PropertiesParser.parse(file, charset, keyMapper, properties);
+        return properties;
+    }
+
     @Override
     public void save(Properties properties, OutputStream out, String comments) throws IOException {
 
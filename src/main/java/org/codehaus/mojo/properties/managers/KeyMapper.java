@@ -0,0 +1,63 @@
+package org.codehaus.mojo.properties.managers;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Maps the keys of properties while they are loaded, so properties which are not wanted are never stored.
+ *
+ * @since 1.4.0
+ */
+@FunctionalInterface
+public interface KeyMapper {
+
+    /**
+     * Keeps all keys as they are.
+     */
+    KeyMapper IDENTITY = key -> key;
+
+    /**
+     * @param key key as defined by the resource
+     * @return key to store the property under, <code>null</code> to drop the property
+     */
+    String map(String key);
+
+    /**
+     * Map the keys of properties loaded without this mapper, for managers which cannot apply it while loading.
+     *
+     * @param properties loaded properties
+     * @return properties with mapped keys, in the same order
+     */
+    default Map<String, String> apply(Map<String, String> properties) {
+        if (this == IDENTITY) {
+            return properties;
+        }
+        Map<String, String> result = new LinkedHashMap<>();
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            String key = map(property.getKey());
+            if (key != null) {
+                result.put(key, property.getValue());
+            }
+        }
+        return result;
+    }
+}
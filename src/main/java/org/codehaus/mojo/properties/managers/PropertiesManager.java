@@ -1,8 +1,14 @@
 package org.codehaus.mojo.properties.managers;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
 
 /**
@@ -28,6 +34,68 @@ public interface PropertiesManager {
      */
     Properties load(InputStream in) throws IOException;
 
+    /**
+     * Load properties in the order they are defined.
+     *
+     * @param in input stream of properties resource
+     * @param charset charset of the resource, for formats which do not define it themselves
+     * @return property keys and values, only string values are kept
+     * @throws IOException in case of IO problems
+     * @since 1.4.0
+     */
+    default Map<String, String> load(InputStream in, Charset charset) throws IOException {
+        Properties properties = load(in);
+        Map<String, String> result = new LinkedHashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            result.put(key, properties.getProperty(key));
+        }
+        return result;
+    }
+
+    /**
+     * Load properties of a file in the order they are defined.
+     *
+     * @param file properties file
+     * @param charset charset of the file, for formats which do not define it themselves
+     * @return property keys and values, only string values are kept
+     * @throws IOException in case of IO problems
+     * @since 1.4.0
+     */
+    default Map<String, String> load(Path file, Charset charset) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            return load(in, charset);
+        }
+    }
+
+    /**
+     * Load properties in the order they are defined, storing only those kept by the key mapper under their mapped key.
+     *
+     * @param in input stream of properties resource
+     * @param charset charset of the resource, for formats which do not define it themselves
+     * @param keyMapper maps or drops the keys
+     * @return mapped property keys and values, only string values are kept
+     * @throws IOException in case of IO problems
+     * @since 1.4.0
+     */
+    default Map<String, String> load(InputStream in, Charset charset, KeyMapper keyMapper) throws IOException {
+        return keyMapper.apply(load(in, charset));
+    }
+
+    /**
+     * Load properties of a file in the order they are defined, storing only those kept by the key mapper under their
+     * mapped key.
+     *
+     * @param file properties file
+     * @param charset charset of the file, for formats which do not define it themselves
+     * @param keyMapper maps or drops the keys
+     * @return mapped property keys and values, only string values are kept
+     * @throws IOException in case of IO problems
+     * @since 1.4.0
+     */
+    default Map<String, String> load(Path file, Charset charset, KeyMapper keyMapper) throws IOException {
+        return keyMapper.apply(load(file, charset));
+    }
+
     /**
      * Store properties
      *
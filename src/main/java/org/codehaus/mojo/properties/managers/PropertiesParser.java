@@ -0,0 +1,343 @@
+package org.codehaus.mojo.properties.managers;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Parser for the <code>.properties</code> format, following the rules of
+ * {@link java.util.Properties#load(java.io.Reader)} for comments, separators, continuation lines and escapes.
+ * <p>
+ * Large files are read through a memory mapped buffer. The content is turned into characters once, ISO-8859-1 bytes by
+ * widening them, and lines are parsed in place. Only continuation lines and values with escapes are copied. Entries
+ * are put into the given map in the order of the file. Values of keys dropped by the {@link KeyMapper} are not
+ * converted at all.
+ */
+final class PropertiesParser {
+
+    /**
+     * Smaller files are read at once, mapping them costs more than it saves.
+     */
+    private static final long MAP_THRESHOLD = 256 * 1024;
+
+    private final char[] chars;
+
+    private final int length;
+
+    private final KeyMapper keyMapper;
+
+    private int pos;
+
+    private char[] line = new char[256];
+
+    private char[] converted = new char[256];
+
+    private PropertiesParser(char[] chars, int length, KeyMapper keyMapper) {
+        this.chars = chars;
+        this.length = length;
+        this.keyMapper = keyMapper;
+    }
+
+    /**
+     * @param file file to parse
+     * @param charset charset of the file
+     * @param keyMapper maps or drops the keys
+     * @param target map receiving the entries
+     * @throws IOException when the file cannot be read
+     * @throws IllegalArgumentException on a malformed <code>\\uxxxx</code> escape
+     */
+    static void parse(Path file, Charset charset, KeyMapper keyMapper, Map<String, String> target) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large: " + file);
+            }
+            if (size < MAP_THRESHOLD) {
+                parse(ByteBuffer.wrap(Files.readAllBytes(file)), charset, keyMapper, target);
+            } else {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                parse(buffer, charset, keyMapper, target);
+            }
+        }
+    }
+
+    /**
+     * @param content content to parse
+     * @param charset charset of the content
+     * @param keyMapper maps or drops the keys
+     * @param target map receiving the entries
+     * @throws IOException when the content cannot be decoded
+     * @throws IllegalArgumentException on a malformed <code>\\uxxxx</code> escape
+     */
+    static void parse(ByteBuffer content, Charset charset, KeyMapper keyMapper, Map<String, String> target)
+            throws IOException {
+        if (StandardCharsets.ISO_8859_1.equals(charset)) {
+            new PropertiesParser(latin1(content), content.remaining(), keyMapper).parse(target);
+            return;
+        }
+        // malformed input is replaced, like an InputStreamReader does
+        CharBuffer decoded = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .decode(content);
+        if (decoded.hasArray() && decoded.arrayOffset() == 0 && decoded.position() == 0) {
+            new PropertiesParser(decoded.array(), decoded.limit(), keyMapper).parse(target);
+        } else {
+            char[] chars = new char[decoded.remaining()];
+            decoded.get(chars);
+            new PropertiesParser(chars, chars.length, keyMapper).parse(target);
+        }
+    }
+
+    private static char[] latin1(ByteBuffer content) {
+        int size = content.remaining();
+        char[] chars = new char[size];
+        if (content.hasArray()) {
+            byte[] bytes = content.array();
+            int offset = content.arrayOffset() + content.position();
+            for (int i = 0; i < size; i++) {
+                chars[i] = (char) (bytes[offset + i] & 0xFF);
+            }
+            return chars;
+        }
+        ByteBuffer source = content.duplicate();
+        byte[] chunk = new byte[Math.min(size, 64 * 1024)];
+        for (int done = 0; done < size; ) {
+            int count = Math.min(chunk.length, size - done);
+            source.get(chunk, 0, count);
+            for (int i = 0; i < count; i++) {
+                chars[done + i] = (char) (chunk[i] & 0xFF);
+            }
+            done += count;
+        }
+        return chars;
+    }
+
+    private void parse(Map<String, String> target) {
+        while (pos < length) {
+            char c = chars[pos];
+            if (isWhitespace(c) || c == '\r' || c == '\n') {
+                pos++;
+                continue;
+            }
+            int end = lineEnd(pos);
+            if (c == '#' || c == '!') {
+                // comments do not continue
+                pos = end;
+                continue;
+            }
+            if (isContinued(pos, end)) {
+                int len = readContinuedLine(end);
+                if (len >= 0) {
+                    entry(line, 0, len, target);
+                }
+            } else {
+                entry(chars, pos, end, target);
+                pos = end;
+            }
+        }
+    }
+
+    private int lineEnd(int from) {
+        int end = from;
+        while (end < length) {
+            char c = chars[end];
+            if (c == '\n' || c == '\r') {
+                break;
+            }
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * @return <code>true</code> when the line ends with an odd number of backslashes
+     */
+    private boolean isContinued(int start, int end) {
+        int backslashes = 0;
+        for (int i = end - 1; i >= start && chars[i] == '\\'; i--) {
+            backslashes++;
+        }
+        return (backslashes & 1) == 1;
+    }
+
+    /**
+     * Join a line ending with a backslash and the following lines into {@link #line}. Leading whitespace of the
+     * following lines is skipped, an empty following line ends the logical line. While the logical line is still
+     * empty, the next line starts a new one like in {@link java.util.Properties#load(java.io.Reader)}, so comments
+     * and blank lines are recognised there.
+     *
+     * @param end end of the first line, which starts at {@link #pos}
+     * @return length of the logical line, <code>-1</code> when it is empty and parsing continues at {@link #pos}
+     */
+    private int readContinuedLine(int end) {
+        int len = 0;
+        int start = pos;
+        boolean continued = true;
+        while (continued) {
+            // without the backslash
+            len = append(len, start, end - 1);
+            if (end + 1 >= length) {
+                // like the JDK, a backslash before the last line terminator or at the end of the input ends the line,
+                // also an empty one
+                pos = length;
+                return len;
+            }
+            pos = skipLineTerminator(end);
+            while (pos < length && isWhitespace(chars[pos])) {
+                pos++;
+            }
+            if (len == 0) {
+                return -1;
+            }
+            if (pos >= length || chars[pos] == '\n' || chars[pos] == '\r') {
+                break;
+            }
+            start = pos;
+            end = lineEnd(start);
+            continued = isContinued(start, end);
+            if (!continued) {
+                len = append(len, start, end);
+                pos = end;
+            }
+        }
+        return len;
+    }
+
+    private int skipLineTerminator(int at) {
+        if (at < length && chars[at] == '\r') {
+            at++;
+            if (at < length && chars[at] == '\n') {
+                at++;
+            }
+        } else if (at < length) {
+            at++;
+        }
+        return at;
+    }
+
+    private int append(int len, int start, int end) {
+        int count = end - start;
+        if (len + count > line.length) {
+            char[] larger = new char[Math.max(len + count, line.length * 2)];
+            System.arraycopy(line, 0, larger, 0, len);
+            line = larger;
+        }
+        System.arraycopy(chars, start, line, len, count);
+        return len + count;
+    }
+
+    private void entry(char[] buffer, int start, int limit, Map<String, String> target) {
+        int keyEnd = start;
+        int valueStart = limit;
+        boolean hasSeparator = false;
+        boolean precedingBackslash = false;
+        while (keyEnd < limit) {
+            char c = buffer[keyEnd];
+            if ((c == '=' || c == ':') && !precedingBackslash) {
+                valueStart = keyEnd + 1;
+                hasSeparator = true;
+                break;
+            } else if (isWhitespace(c) && !precedingBackslash) {
+                valueStart = keyEnd + 1;
+                break;
+            }
+            precedingBackslash = c == '\\' && !precedingBackslash;
+            keyEnd++;
+        }
+        while (valueStart < limit) {
+            char c = buffer[valueStart];
+            if (!isWhitespace(c)) {
+                if (!hasSeparator && (c == '=' || c == ':')) {
+                    hasSeparator = true;
+                } else {
+                    break;
+                }
+            }
+            valueStart++;
+        }
+        String key = keyMapper.map(convert(buffer, start, keyEnd));
+        if (key != null) {
+            target.put(key, convert(buffer, valueStart, limit));
+        }
+    }
+
+    private String convert(char[] buffer, int start, int end) {
+        int backslash = start;
+        while (backslash < end && buffer[backslash] != '\\') {
+            backslash++;
+        }
+        if (backslash == end) {
+            return new String(buffer, start, end - start);
+        }
+
+        if (converted.length < end - start) {
+            converted = new char[Math.max(end - start, converted.length * 2)];
+        }
+        int out = backslash - start;
+        System.arraycopy(buffer, start, converted, 0, out);
+        int i = backslash;
+        while (i < end) {
+            char c = buffer[i++];
+            if (c == '\\' && i < end) {
+                c = buffer[i++];
+                if (c == 'u') {
+                    if (i + 4 > end) {
+                        throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+                    }
+                    int value = 0;
+                    for (int j = 0; j < 4; j++) {
+                        int digit = Character.digit(buffer[i++], 16);
+                        if (digit < 0) {
+                            throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+                        }
+                        value = (value << 4) | digit;
+                    }
+                    c = (char) value;
+                } else if (c == 't') {
+                    c = '\t';
+                } else if (c == 'r') {
+                    c = '\r';
+                } else if (c == 'n') {
+                    c = '\n';
+                } else if (c == 'f') {
+                    c = '\f';
+                }
+            }
+            converted[out++] = c;
+        }
+        return new String(converted, 0, out);
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\f';
+    }
+}
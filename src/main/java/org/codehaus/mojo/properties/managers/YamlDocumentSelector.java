@@ -0,0 +1,81 @@
+package org.codehaus.mojo.properties.managers;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Selects the documents of a multi-document YAML stream by profile.
+ * <p>
+ * A document is selected when it does not contain the selector key, or when the value of that key names an active
+ * profile. The value may list several profiles separated by commas, any of them selects the document. A YAML sequence
+ * of profiles is matched like its items separated by commas. A profile prefixed with <code>!</code> selects the
+ * document when that profile is not active.
+ *
+ * @since 1.4.0
+ */
+public final class YamlDocumentSelector {
+
+    private final String key;
+
+    private final Set<String> profiles;
+
+    /**
+     * @param key flattened key of the selector, like <code>spring.config.activate.on-profile</code>
+     * @param profiles ids of the active profiles
+     */
+    public YamlDocumentSelector(String key, Collection<String> profiles) {
+        this.key = key;
+        this.profiles = Collections.unmodifiableSet(new TreeSet<>(profiles));
+    }
+
+    /**
+     * @return flattened key of the selector
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @param value value of the selector key in a document
+     * @return <code>true</code> when the document is selected
+     */
+    public boolean matches(String value) {
+        for (String expression : value.split(",")) {
+            String profile = expression.trim();
+            if (profile.startsWith("!")) {
+                if (!profiles.contains(profile.substring(1).trim())) {
+                    return true;
+                }
+            } else if (!profile.isEmpty() && profiles.contains(profile)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return key + "=" + String.join(",", profiles);
+    }
+}
@@ -0,0 +1,409 @@
+package org.codehaus.mojo.properties.managers;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.NodeEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+
+/**
+ * Flattens YAML parse events into properties, without building the document tree.
+ * <p>
+ * Nested mapping keys are joined with <code>.</code> and sequence items get their index, like
+ * <code>a.b[3].c</code>. Items of nested sequences get one index per level, like <code>m[0][1]</code>, where the
+ * former flattening of the document tree kept the inner sequence as one value like <code>[1, 2]</code>. Scalars are
+ * taken as written. Anchored collections are recorded, so aliases can be replayed, and merge keys
+ * (<code>&lt;&lt;</code>) add the entries of the merged mappings unless the mapping defines them itself. Properties of
+ * earlier documents do not count as defined, later documents override them also with merged entries.
+ * <p>
+ * With a {@link YamlDocumentSelector}, the rest of a document is skipped as soon as its selector key shows that it is
+ * not selected, a sequence of profiles under the selector key is matched once the document was read. Properties of a
+ * document are only added once the whole document was read. Keys are passed through a {@link KeyMapper} before they
+ * are stored, the selector key is matched before.
+ * <p>
+ * As aliases are expanded instead of shared, every alias of a collection counts against
+ * {@link LoaderOptions#getMaxAliasesForCollections()}, also when it is part of an expanded alias. Together with
+ * {@link LoaderOptions#getNestingDepthLimit()} this bounds the work for a document, which the parser alone does not.
+ */
+final class YamlFlattener {
+
+    private static final String MERGE_KEY = "<<";
+
+    private final Deque<Iterator<Event>> sources = new ArrayDeque<>();
+
+    private final Map<String, List<Event>> anchors = new HashMap<>();
+
+    private final List<List<Event>> recordings = new ArrayList<>();
+
+    private final StringBuilder path = new StringBuilder();
+
+    private final YamlDocumentSelector selector;
+
+    private final List<String> selectorItems = new ArrayList<>();
+
+    private final LoaderOptions options;
+
+    private final KeyMapper keyMapper;
+
+    private Map<String, String> target;
+
+    private int merging;
+
+    private boolean rejected;
+
+    private int depth;
+
+    private int aliasesForCollections;
+
+    private int renamedAliases;
+
+    /**
+     * @param events parse events of a YAML stream
+     * @param selector selects the documents to flatten, <code>null</code> for all documents
+     * @param options limits for aliases and nesting
+     * @param keyMapper maps or drops the keys
+     */
+    YamlFlattener(Iterator<Event> events, YamlDocumentSelector selector, LoaderOptions options, KeyMapper keyMapper) {
+        sources.push(events);
+        this.selector = selector;
+        this.options = options;
+        this.keyMapper = keyMapper;
+    }
+
+    /**
+     * @return next event, <code>null</code> at the end of the stream
+     */
+    Event next() {
+        while (!sources.isEmpty()) {
+            Iterator<Event> source = sources.peek();
+            if (source.hasNext()) {
+                Event event = source.next();
+                // replayed events are not recorded again, recordings keep the alias instead
+                if (sources.size() == 1 && !recordings.isEmpty()) {
+                    Event recorded = event instanceof AliasEvent ? bindAlias((AliasEvent) event) : event;
+                    for (List<Event> recording : recordings) {
+                        recording.add(recorded);
+                    }
+                }
+                return event;
+            }
+            sources.pop();
+        }
+        return null;
+    }
+
+    /**
+     * Flatten the node starting with the given event, usually the root node of a document.
+     *
+     * @param event first event of the node
+     * @param target map receiving the properties
+     * @return <code>false</code> when the document was skipped as not selected
+     * @throws IOException when the node is not a mapping, uses an unknown alias or exceeds a limit
+     */
+    boolean flattenDocument(Event event, Map<String, String> target) throws IOException {
+        // anchors are local to a document
+        anchors.clear();
+        aliasesForCollections = 0;
+        if (event instanceof ScalarEvent && ((ScalarEvent) event).getValue().isEmpty()) {
+            // empty document
+            return true;
+        }
+        if (!event.is(Event.ID.MappingStart)) {
+            throw new IOException("YAML document must be a mapping " + event.getStartMark());
+        }
+        // merged entries only give way to entries of this document
+        this.target = selector != null || !target.isEmpty() ? new LinkedHashMap<>() : target;
+        rejected = false;
+        selectorItems.clear();
+        node(event);
+        if (!rejected && !selectorItems.isEmpty()) {
+            // a sequence of profiles selects like the same profiles separated by commas
+            rejected = !selector.matches(String.join(",", selectorItems));
+        }
+        if (rejected) {
+            return false;
+        }
+        if (this.target != target) {
+            target.putAll(this.target);
+        }
+        return true;
+    }
+
+    /**
+     * Skip the node starting with the given event. Anchors defined inside are still recorded.
+     *
+     * @param event first event of the node
+     * @throws IOException when the node nests too deep
+     */
+    void skip(Event event) throws IOException {
+        List<Event> recording = startRecording(event);
+        if (event instanceof CollectionStartEvent) {
+            enter(event);
+            for (Event child = next(); !isCollectionEnd(child); child = next()) {
+                skip(child);
+            }
+            depth--;
+        }
+        stopRecording(event, recording);
+    }
+
+    private void node(Event event) throws IOException {
+        if (event instanceof AliasEvent) {
+            replay((AliasEvent) event);
+            return;
+        }
+        List<Event> recording = startRecording(event);
+        if (event instanceof ScalarEvent) {
+            put(((ScalarEvent) event).getValue());
+        } else if (event.is(Event.ID.MappingStart)) {
+            enter(event);
+            mapping();
+            depth--;
+        } else if (event.is(Event.ID.SequenceStart)) {
+            enter(event);
+            sequence();
+            depth--;
+        } else {
+            throw new IOException("Unexpected YAML event " + event + " " + event.getStartMark());
+        }
+        stopRecording(event, recording);
+    }
+
+    private void enter(Event event) throws IOException {
+        if (++depth > options.getNestingDepthLimit()) {
+            throw new IOException("YAML nesting depth exceeds the limit of " + options.getNestingDepthLimit() + " "
+                    + event.getStartMark());
+        }
+    }
+
+    private void mapping() throws IOException {
+        for (Event keyEvent = next(); !keyEvent.is(Event.ID.MappingEnd); keyEvent = next()) {
+            if (rejected) {
+                skip(keyEvent);
+                skip(next());
+                continue;
+            }
+            String key = key(keyEvent);
+            Event valueEvent = next();
+            if (MERGE_KEY.equals(key) && isPlain(keyEvent)) {
+                merge(valueEvent);
+                continue;
+            }
+            int mark = path.length();
+            if (mark > 0) {
+                path.append('.');
+            }
+            path.append(key);
+            node(valueEvent);
+            path.setLength(mark);
+        }
+    }
+
+    private void sequence() throws IOException {
+        int index = 0;
+        for (Event event = next(); !event.is(Event.ID.SequenceEnd); event = next()) {
+            if (rejected) {
+                skip(event);
+                continue;
+            }
+            int mark = path.length();
+            path.append('[').append(index++).append(']');
+            node(event);
+            path.setLength(mark);
+        }
+    }
+
+    private void merge(Event event) throws IOException {
+        merging++;
+        try {
+            if (event.is(Event.ID.SequenceStart)) {
+                // earlier mappings take precedence, like entries already defined
+                List<Event> recording = startRecording(event);
+                for (Event item = next(); !item.is(Event.ID.SequenceEnd); item = next()) {
+                    mergeMapping(item);
+                }
+                stopRecording(event, recording);
+            } else {
+                mergeMapping(event);
+            }
+        } finally {
+            merging--;
+        }
+    }
+
+    private void mergeMapping(Event event) throws IOException {
+        Event mapping = event;
+        if (event instanceof AliasEvent) {
+            replayAlias((AliasEvent) event);
+            mapping = next();
+        }
+        if (!mapping.is(Event.ID.MappingStart)) {
+            throw new IOException("Merge key expects a mapping " + event.getStartMark());
+        }
+        List<Event> recording = mapping == event ? startRecording(mapping) : null;
+        mapping();
+        if (recording != null) {
+            stopRecording(mapping, recording);
+        }
+    }
+
+    private String key(Event event) throws IOException {
+        if (event instanceof ScalarEvent) {
+            startRecording(event);
+            return ((ScalarEvent) event).getValue().trim();
+        }
+        if (event instanceof AliasEvent) {
+            List<Event> recorded = recorded((AliasEvent) event);
+            if (recorded.size() == 1 && recorded.get(0) instanceof ScalarEvent) {
+                return ((ScalarEvent) recorded.get(0)).getValue().trim();
+            }
+        }
+        throw new IOException("Only scalar YAML keys are supported " + event.getStartMark());
+    }
+
+    private static boolean isCollectionEnd(Event event) {
+        return event.is(Event.ID.MappingEnd) || event.is(Event.ID.SequenceEnd);
+    }
+
+    private static boolean isPlain(Event event) {
+        return event instanceof ScalarEvent && ((ScalarEvent) event).isPlain();
+    }
+
+    private void put(String value) throws IOException {
+        String path = this.path.toString();
+        String key = keyMapper.map(path);
+        if (key != null && merging > 0 && target.containsKey(key)) {
+            return;
+        }
+        if (selector != null && path.startsWith(selector.getKey())) {
+            select(path.substring(selector.getKey().length()), value);
+        }
+        if (key != null) {
+            target.put(key, value);
+        }
+    }
+
+    /**
+     * @param suffix rest of the path after the selector key
+     */
+    private void select(String suffix, String value) throws IOException {
+        if (suffix.isEmpty()) {
+            if (!selector.matches(value)) {
+                rejected = true;
+            }
+        } else if (isIndex(suffix)) {
+            selectorItems.add(value);
+        } else if (suffix.charAt(0) == '.' || suffix.charAt(0) == '[') {
+            throw new IOException("YAML document selector " + selector.getKey()
+                    + " must be a profile, profiles separated by commas or a sequence of profiles, found "
+                    + selector.getKey() + suffix);
+        }
+    }
+
+    private static boolean isIndex(String suffix) {
+        if (suffix.length() < 3 || suffix.charAt(0) != '[' || suffix.charAt(suffix.length() - 1) != ']') {
+            return false;
+        }
+        for (int i = 1; i < suffix.length() - 1; i++) {
+            if (!Character.isDigit(suffix.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void replay(AliasEvent alias) throws IOException {
+        replayAlias(alias);
+        node(next());
+    }
+
+    /**
+     * Make the events of an anchored node the next events.
+     */
+    private void replayAlias(AliasEvent alias) throws IOException {
+        List<Event> recorded = recorded(alias);
+        if (!(recorded.get(0) instanceof ScalarEvent)
+                && ++aliasesForCollections > options.getMaxAliasesForCollections()) {
+            throw new IOException("Number of aliases for collections exceeds the limit of "
+                    + options.getMaxAliasesForCollections() + " " + alias.getStartMark());
+        }
+        sources.push(recorded.iterator());
+    }
+
+    /**
+     * An anchor can be defined again later in the document, so a recorded alias refers to the node it meant when it
+     * was recorded under a name of its own.
+     */
+    private Event bindAlias(AliasEvent alias) {
+        List<Event> recorded = anchors.get(alias.getAnchor());
+        if (recorded == null) {
+            return alias;
+        }
+        String name = alias.getAnchor() + '\0' + renamedAliases++;
+        anchors.put(name, recorded);
+        return new AliasEvent(name, alias.getStartMark(), alias.getEndMark());
+    }
+
+    private List<Event> recorded(AliasEvent alias) throws IOException {
+        List<Event> recorded = anchors.get(alias.getAnchor());
+        if (recorded == null) {
+            throw new IOException("Unknown YAML alias " + alias.getAnchor() + " " + alias.getStartMark());
+        }
+        return recorded;
+    }
+
+    private List<Event> startRecording(Event event) {
+        String anchor = event instanceof NodeEvent ? ((NodeEvent) event).getAnchor() : null;
+        // replayed events were recorded when first seen
+        if (anchor == null || event instanceof AliasEvent || sources.size() > 1) {
+            return null;
+        }
+        if (event instanceof ScalarEvent) {
+            anchors.put(anchor, Collections.singletonList(event));
+            return null;
+        }
+        List<Event> recording = new ArrayList<>();
+        recording.add(event);
+        recordings.add(recording);
+        return recording;
+    }
+
+    private void stopRecording(Event event, List<Event> recording) {
+        if (recording != null) {
+            // recordings are nested, the innermost ends first
+            recordings.remove(recordings.size() - 1);
+            anchors.put(((NodeEvent) event).getAnchor(), recording);
+        }
+    }
+}
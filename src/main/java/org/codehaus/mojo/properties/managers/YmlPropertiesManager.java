@@ -9,18 +9,25 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
+import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.reader.UnicodeReader;
 
 /**
  * Properties manager using YAML as backand.
@@ -40,11 +47,105 @@ public class YmlPropertiesManager implements PropertiesManager {
     @Override
     public Properties load(final InputStream in) throws IOException {
         final Properties properties = new Properties();
-        final Map<String, Object> map = flattenYamlToMap("", new Yaml().load(in));
-        properties.putAll(map);
+        properties.putAll(load(in, StandardCharsets.UTF_8));
         return properties;
     }
 
+    /**
+     * Load all documents of a YAML stream, later documents override earlier ones. The encoding is detected from the
+     * stream, the given charset is not used.
+     */
+    @Override
+    public Map<String, String> load(final InputStream in, final Charset charset) throws IOException {
+        return load(in, (YamlDocumentSelector) null);
+    }
+
+    /**
+     * Load the selected documents of a YAML stream, later documents override earlier ones. Documents which are not
+     * selected are skipped while parsing, without building their properties.
+     *
+     * @param in input stream of the YAML resource
+     * @param selector selects documents by profile, <code>null</code> loads all documents
+     * @return property keys and values in the order they are defined
+     * @throws IOException in case of IO problems or invalid YAML
+     * @since 1.4.0
+     */
+    public Map<String, String> load(final InputStream in, final YamlDocumentSelector selector) throws IOException {
+        return load(in, selector, new LoaderOptions());
+    }
+
+    /**
+     * Load the selected documents of a YAML stream within the given limits. The code point limit applies to each
+     * document, the limits for aliases of collections and nesting depth to each document after expanding aliases.
+     *
+     * @param in input stream of the YAML resource
+     * @param selector selects documents by profile, <code>null</code> loads all documents
+     * @param options limits for the documents
+     * @return property keys and values in the order they are defined
+     * @throws IOException in case of IO problems, invalid YAML or a document exceeding a limit
+     * @since 1.4.0
+     */
+    public Map<String, String> load(
+            final InputStream in, final YamlDocumentSelector selector, final LoaderOptions options) throws IOException {
+        return load(in, selector, options, KeyMapper.IDENTITY);
+    }
+
+    @Override
+    public Map<String, String> load(final InputStream in, final Charset charset, final KeyMapper keyMapper)
+            throws IOException {
+        return load(in, null, new LoaderOptions(), keyMapper);
+    }
+
+    /**
+     * Load the selected documents of a YAML stream within the given limits, storing only properties kept by the key
+     * mapper under their mapped key. The selector key is matched before mapping.
+     *
+     * @param in input stream of the YAML resource
+     * @param selector selects documents by profile, <code>null</code> loads all documents
+     * @param options limits for the documents
+     * @param keyMapper maps or drops the keys
+     * @return mapped property keys and values in the order they are defined
+     * @throws IOException in case of IO problems, invalid YAML or a document exceeding a limit
+     * @since 1.4.0
+     */
+    public Map<String, String> load(
+            final InputStream in,
+            final YamlDocumentSelector selector,
+            final LoaderOptions options,
+            final KeyMapper keyMapper)
+            throws IOException {
+        final Map<String, String> properties = new LinkedHashMap<>();
+        try {
+            final Reader reader = new UnicodeReader(in);
+            final YamlFlattener flattener =
+                    new YamlFlattener(new Yaml(options).parse(reader).iterator(), selector, options, keyMapper);
+            Event event;
+            while ((event = flattener.next()) != null) {
+                if (event.is(Event.ID.DocumentStart)) {
+                    flattener.flattenDocument(flattener.next(), properties);
+                }
+            }
+        } catch (final YAMLException e) {
+            throw new IOException(e.getMessage() + " (limits: " + describe(options) + ")", e);
+        }
+        return properties;
+    }
+
+    /**
+     * @param options options for loading YAML
+     * @return description of the limits
+     * @since 1.4.0
+     */
+    public static String describe(final LoaderOptions options) {
+        return "codePointLimit=" + options.getCodePointLimit()
+                + ", maxAliasesForCollections=" + options.getMaxAliasesForCollections()
+                + ", nestingDepthLimit=" + options.getNestingDepthLimit();
+    }
+
+    /**
+     * @deprecated {@link #load(InputStream)} flattens the parse events without building the document tree first
+     */
+    @Deprecated
     public Map<String, Object> flattenYamlToMap(String parentKey, final Map<String, Object> yamlMap) {
         if (parentKey != null && !parentKey.trim().isEmpty()) {
             parentKey = parentKey.trim() + ".";
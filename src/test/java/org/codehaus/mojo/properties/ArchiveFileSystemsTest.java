@@ -0,0 +1,70 @@
+package org.codehaus.mojo.properties;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ArchiveFileSystemsTest {
+
+    private Path archive;
+
+    @Before
+    public void setUp() throws IOException {
+        archive = Files.createTempFile("config", ".zip");
+        archive.toFile().deleteOnExit();
+        writeArchive(archive, "a.properties", "key=a", "dir/b.yml", "key: b");
+    }
+
+    static void writeArchive(Path archive, String... namesAndContents) throws IOException {
+        try (OutputStream out = Files.newOutputStream(archive);
+                ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(namesAndContents[i]));
+                zip.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+    }
+
+    private static String read(ArchiveFileSystems archives, File file) throws IOException {
+        Path entry = archives.getEntry(file, ArchiveFileSystems.indexOfEntry(file));
+        return new String(Files.readAllBytes(entry), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void entriesAreReadFromArchiveOpenedOnce() throws IOException {
+        try (ArchiveFileSystems archives = new ArchiveFileSystems()) {
+            assertEquals("key=a", read(archives, new File(archive + "!/a.properties")));
+            assertEquals("key: b", read(archives, new File(archive + "!/dir/b.yml")));
+            assertEquals(1, archives.size());
+        }
+    }
+
+    @Test
+    public void pathsWithoutArchiveAreNoEntries() throws IOException {
+        Path directory = Files.createTempDirectory("config!");
+        File file = new File(directory.toFile(), "a.properties");
+
+        assertEquals(-1, ArchiveFileSystems.indexOfEntry(file));
+        assertEquals(-1, ArchiveFileSystems.indexOfEntry(new File(archive + ".missing!/a.properties")));
+    }
+
+    @Test
+    public void missingEntryDoesNotExist() throws IOException {
+        try (ArchiveFileSystems archives = new ArchiveFileSystems()) {
+            File file = new File(archive + "!/missing.properties");
+            assertFalse(Files.exists(archives.getEntry(file, ArchiveFileSystems.indexOfEntry(file))));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.codehaus.mojo.properties;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.codehaus.plexus.util.IOUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ContentDecodingTest {
+
+    @Test
+    public void plainFileIsNotDecoded() {
+        ContentDecoding decoding = ContentDecoding.of("config.properties");
+
+        assertEquals("properties", decoding.getExtension());
+        assertFalse(decoding.isEncoded());
+    }
+
+    @Test
+    public void compressionExtensionsAreTakenFromTheEnd() {
+        ContentDecoding decoding = ContentDecoding.of("config.yml.zz.GZ");
+
+        assertEquals("yml", decoding.getExtension());
+        assertTrue(decoding.isEncoded());
+        assertEquals("gz+zz", decoding.toString());
+    }
+
+    @Test
+    public void stagesAreDecodedOutermostFirst() throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(encoded);
+                OutputStream deflated = new DeflaterOutputStream(out)) {
+            deflated.write("key=value".getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (InputStream in =
+                ContentDecoding.of("config.properties.zz.gz").decode(new ByteArrayInputStream(encoded.toByteArray()))) {
+            assertEquals("key=value", IOUtil.toString(in, "UTF-8"));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.codehaus.mojo.properties;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FileSetScannerTest {
+
+    private Path directory;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("file-set");
+        for (String file : Arrays.asList(
+                "z.properties",
+                "a.yml",
+                "b/c.properties",
+                "b/d/e.properties",
+                "b/d/f.txt",
+                "b-extra/g.properties",
+                "target/h.properties")) {
+            Path path = directory.resolve(file);
+            Files.createDirectories(path.getParent());
+            Files.write(path, new byte[0]);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private List<String> scan(List<String> includes, List<String> excludes) throws IOException {
+        List<String> paths = new ArrayList<>();
+        for (File file : new FileSetScanner(pool).scan(directory.toFile(), includes, excludes)) {
+            paths.add(directory.relativize(file.toPath()).toString().replace(File.separatorChar, '/'));
+        }
+        return paths;
+    }
+
+    @Test
+    public void allFilesAreIncludedByDefault() throws IOException {
+        assertEquals(
+                Arrays.asList(
+                        "a.yml",
+                        "b-extra/g.properties",
+                        "b/c.properties",
+                        "b/d/e.properties",
+                        "b/d/f.txt",
+                        "target/h.properties",
+                        "z.properties"),
+                scan(Collections.emptyList(), Collections.emptyList()));
+    }
+
+    @Test
+    public void includesAndExcludesAreApplied() throws IOException {
+        assertEquals(
+                Arrays.asList("b-extra/g.properties", "b/c.properties", "z.properties"),
+                scan(Arrays.asList("**/*.properties"), Arrays.asList("target/", "**/d/**")));
+    }
+
+    @Test
+    public void includesSelectDirectories() throws IOException {
+        assertEquals(
+                Arrays.asList("b/c.properties", "b/d/e.properties"),
+                scan(Arrays.asList("b/**/*.properties"), Collections.emptyList()));
+    }
+
+    @Test
+    public void walkWithoutPoolFindsTheSameFiles() throws IOException {
+        List<File> expected = new FileSetScanner(pool)
+                .scan(directory.toFile(), Arrays.asList("**/*.properties"), Arrays.asList("target/"));
+
+        assertEquals(
+                expected,
+                new FileSetScanner(null)
+                        .scan(directory.toFile(), Arrays.asList("**/*.properties"), Arrays.asList("target/")));
+    }
+
+    @Test(expected = IOException.class)
+    public void missingDirectoryFails() throws IOException {
+        new FileSetScanner(pool)
+                .scan(directory.resolve("missing").toFile(), Collections.emptyList(), Collections.emptyList());
+    }
+}
@@ -0,0 +1,190 @@
+package org.codehaus.mojo.properties;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HttpSourceClientTest {
+
+    private HttpServer server;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL("http://localhost:" + server.getAddress().getPort() + path);
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        exchange.close();
+    }
+
+    @Test
+    public void permitsAreSharedPerHostAndPort() throws IOException {
+        ConcurrentMap<String, HttpSourceClient.HostPermits> permits = new ConcurrentHashMap<>();
+        HttpSourceClient first = new HttpSourceClient(1000, 1000, 0, 1, 2, permits);
+        HttpSourceClient second = new HttpSourceClient(1000, 1000, 0, 1, 8, permits);
+
+        assertEquals(2, first.getPermitLimit(new URL("https://example.org/a.properties")));
+        // the default port is the same host, the limit of the first client applies
+        assertEquals(2, second.getPermitLimit(new URL("https://EXAMPLE.org:443/b.properties")));
+        assertEquals(8, second.getPermitLimit(new URL("http://example.org/c.properties")));
+        // not shared with clients of other builds
+        assertEquals(8, new HttpSourceClient(1000, 1000, 0, 1, 8).getPermitLimit(new URL("https://example.org/")));
+    }
+
+    @Test
+    public void serverErrorsAreRetried() throws IOException {
+        server.createContext("/flaky.properties", exchange -> {
+            if (requests.incrementAndGet() < 3) {
+                send(exchange, 503, new byte[0]);
+            } else {
+                send(exchange, 200, "key=value".getBytes(StandardCharsets.UTF_8));
+            }
+        });
+
+        byte[] body = new HttpSourceClient(1000, 1000, 2, 1, 4).fetch(url("/flaky.properties"));
+
+        assertEquals("key=value", new String(body, StandardCharsets.UTF_8));
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    public void retriesAreBounded() throws IOException {
+        server.createContext("/down.properties", exchange -> {
+            requests.incrementAndGet();
+            send(exchange, 500, new byte[0]);
+        });
+
+        try {
+            new HttpSourceClient(1000, 1000, 2, 1, 4).fetch(url("/down.properties"));
+            fail("failing source was read");
+        } catch (IOException e) {
+            assertEquals(3, requests.get());
+        }
+    }
+
+    @Test
+    public void clientErrorsAreNotRetried() throws IOException {
+        server.createContext("/missing.properties", exchange -> {
+            requests.incrementAndGet();
+            send(exchange, 404, new byte[0]);
+        });
+
+        try {
+            new HttpSourceClient(1000, 1000, 2, 1, 4).fetch(url("/missing.properties"));
+            fail("missing source was read");
+        } catch (IOException e) {
+            assertEquals(1, requests.get());
+        }
+    }
+
+    @Test
+    public void slowServerTimesOut() throws IOException {
+        server.createContext("/slow.properties", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            send(exchange, 200, new byte[0]);
+        });
+
+        try {
+            new HttpSourceClient(1000, 100, 0, 1, 4).fetch(url("/slow.properties"));
+            fail("slow source was read");
+        } catch (SocketTimeoutException e) {
+            assertEquals(1, requests.get());
+        }
+    }
+
+    @Test
+    public void gzipResponsesAreDecoded() throws IOException {
+        server.createContext("/compressed.properties", exchange -> {
+            assertEquals("gzip", exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write("key=value".getBytes(StandardCharsets.UTF_8));
+            }
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            send(exchange, 200, compressed.toByteArray());
+        });
+
+        byte[] body = new HttpSourceClient(1000, 1000, 0, 1, 4).fetch(url("/compressed.properties"));
+
+        assertEquals("key=value", new String(body, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void concurrentRequestsPerHostAreLimited() throws Exception {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        server.createContext("/busy.properties", exchange -> {
+            int now = active.incrementAndGet();
+            maxActive.accumulateAndGet(now, Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            active.decrementAndGet();
+            send(exchange, 200, new byte[0]);
+        });
+
+        HttpSourceClient client = new HttpSourceClient(1000, 5000, 0, 1, 2);
+        URL url = url("/busy.properties");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> client.fetch(url)));
+            }
+            for (Future<byte[]> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue("at most 2 concurrent requests, got " + maxActive.get(), maxActive.get() <= 2);
+    }
+}
@@ -0,0 +1,43 @@
+package org.codehaus.mojo.properties;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class InputFingerprintTest {
+
+    @Test
+    public void recordIsWrittenAndRead() throws IOException {
+        Path file = Files.createTempDirectory("records").resolve("record.bin");
+        new InputFingerprint.Record("abc", Collections.singletonMap("env.HOME", "/home"), Collections.emptyMap())
+                .write(file);
+
+        InputFingerprint.Record record = InputFingerprint.Record.read(file);
+
+        assertEquals("abc", record.getFingerprint());
+    }
+
+    @Test
+    public void failedWriteLeavesNoTemporaryFile() throws IOException {
+        Path directory = Files.createTempDirectory("records");
+        Path file = directory.resolve("record.bin");
+        // a directory which is not empty cannot be replaced
+        Files.createDirectories(file.resolve("taken"));
+
+        try {
+            new InputFingerprint.Record("abc", Collections.emptyMap(), Collections.emptyMap()).write(file);
+            fail();
+        } catch (IOException e) {
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(1, files.count());
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.codehaus.mojo.properties;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class KeyProjectionTest {
+
+    private static KeyRename rename(String pattern, String replacement) {
+        KeyRename rename = new KeyRename();
+        rename.setPattern(pattern);
+        rename.setReplacement(replacement);
+        return rename;
+    }
+
+    @Test
+    public void keysAreIncludedAndExcludedByPattern() {
+        KeyProjection projection = new KeyProjection();
+        projection.setSource("**/application.properties");
+        projection.setIncludes(Arrays.asList("spring.datasource.*", "server.port"));
+        projection.setExcludes(Collections.singletonList("*.password"));
+
+        KeyProjection.Compiled compiled = projection.compile(null);
+
+        assertEquals("spring.datasource.url", compiled.map("spring.datasource.url"));
+        assertEquals("server.port", compiled.map("server.port"));
+        assertNull(compiled.map("spring.datasource.password"));
+        assertNull(compiled.map("server.address"));
+        assertNull(compiled.map("xspring.datasource.url"));
+    }
+
+    @Test
+    public void firstMatchingRenameAppliesBeforePrefix() {
+        KeyProjection projection = new KeyProjection();
+        projection.setSource("*.yml");
+        projection.setKeyPrefix("app.");
+        projection.setRenames(
+                Arrays.asList(rename("spring\\.datasource\\.(.*)", "db.$1"), rename("spring\\.(.*)", "other.$1")));
+
+        KeyProjection.Compiled compiled = projection.compile("ignored.");
+
+        assertEquals("app.db.url", compiled.map("spring.datasource.url"));
+        assertEquals("app.other.jpa", compiled.map("spring.jpa"));
+        assertEquals("app.server.port", compiled.map("server.port"));
+    }
+
+    @Test
+    public void defaultPrefixIsUsedWithoutOwnPrefix() {
+        KeyProjection projection = new KeyProjection();
+        projection.setSource("*.yml");
+
+        assertEquals("default.key", projection.compile("default.").map("key"));
+    }
+
+    @Test
+    public void sourceMatchesPathsAndUrls() {
+        KeyProjection projection = new KeyProjection();
+        projection.setSource("**/config/*.properties");
+
+        KeyProjection.Compiled compiled = projection.compile(null);
+
+        assertTrue(compiled.matches("src/main/config/app.properties"));
+        assertTrue(compiled.matches("/tmp/config/app.properties"));
+        assertTrue(compiled.matches("https://example.com/config/app.properties"));
+        assertTrue(compiled.matches("config/app.properties"));
+        assertFalse(compiled.matches("src/main/config/nested/app.properties"));
+        assertFalse(compiled.matches("src/main/config/app.yml"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sourceIsRequired() {
+        new KeyProjection().compile(null);
+    }
+}
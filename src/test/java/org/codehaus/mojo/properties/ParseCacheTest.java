@@ -0,0 +1,151 @@
+package org.codehaus.mojo.properties;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.mojo.properties.managers.JdkPropertiesManager;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class ParseCacheTest {
+
+    private Path cacheDirectory;
+
+    private Path file;
+
+    private final AtomicInteger parsed = new AtomicInteger();
+
+    private final ParseCache.Parser parser = path -> {
+        parsed.incrementAndGet();
+        return new JdkPropertiesManager().load(path, StandardCharsets.ISO_8859_1);
+    };
+
+    @Before
+    public void setUp() throws IOException {
+        cacheDirectory = Files.createTempDirectory("parse-cache");
+        file = Files.createTempFile("parse-cache", ".properties");
+        file.toFile().deleteOnExit();
+        write("key=value1");
+    }
+
+    private void write(String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.ISO_8859_1));
+        // older than the timestamp granularity, so size and time are trusted
+        setModified(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(1));
+    }
+
+    private void setModified(long millis) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.fromMillis(millis));
+    }
+
+    @Test
+    public void unchangedFileIsNotParsedAgain() throws IOException {
+        assertEquals(
+                "value1",
+                new ParseCache(cacheDirectory).load(file, "jdk", parser).get("key"));
+        assertEquals(
+                "value1",
+                new ParseCache(cacheDirectory).load(file, "jdk", parser).get("key"));
+
+        assertEquals(1, parsed.get());
+    }
+
+    @Test
+    public void changedFileIsParsedAgain() throws IOException {
+        new ParseCache(cacheDirectory).load(file, "jdk", parser);
+
+        write("key=value2");
+
+        assertEquals(
+                "value2",
+                new ParseCache(cacheDirectory).load(file, "jdk", parser).get("key"));
+        assertEquals(2, parsed.get());
+    }
+
+    @Test
+    public void touchedFileWithSameContentIsNotParsedAgain() throws IOException {
+        new ParseCache(cacheDirectory).load(file, "jdk", parser);
+
+        setModified(System.currentTimeMillis());
+
+        assertEquals(
+                "value1",
+                new ParseCache(cacheDirectory).load(file, "jdk", parser).get("key"));
+        assertEquals(1, parsed.get());
+    }
+
+    @Test
+    public void recentlyModifiedFileIsCheckedByContent() throws IOException {
+        Files.write(file, "key=value1".getBytes(StandardCharsets.ISO_8859_1));
+        new ParseCache(cacheDirectory).load(file, "jdk", parser);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+
+        // same size and timestamp, only the content tells the change
+        Files.write(file, "key=value2".getBytes(StandardCharsets.ISO_8859_1));
+        setModified(modified);
+
+        assertEquals(
+                "value2",
+                new ParseCache(cacheDirectory).load(file, "jdk", parser).get("key"));
+        assertEquals(2, parsed.get());
+    }
+
+    @Test
+    public void otherParserDoesNotUseEntry() throws IOException {
+        new ParseCache(cacheDirectory).load(file, "jdk", parser);
+        new ParseCache(cacheDirectory).load(file, "other", parser);
+
+        assertEquals(2, parsed.get());
+    }
+
+    @Test
+    public void damagedEntryIsReplaced() throws IOException {
+        new ParseCache(cacheDirectory).load(file, "jdk", parser);
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(cacheDirectory)) {
+            for (Path entry : entries) {
+                byte[] content = Files.readAllBytes(entry);
+                Files.write(entry, Arrays.copyOf(content, content.length / 2));
+            }
+        }
+
+        assertEquals(
+                "value1",
+                new ParseCache(cacheDirectory).load(file, "jdk", parser).get("key"));
+        assertEquals(
+                "value1",
+                new ParseCache(cacheDirectory).load(file, "jdk", parser).get("key"));
+        assertEquals(2, parsed.get());
+    }
+
+    @Test
+    public void statisticsCountHitsAndMisses() throws IOException {
+        ParseCache cache = new ParseCache(cacheDirectory);
+        cache.load(file, "jdk", parser);
+        cache.load(file, "jdk", parser);
+
+        assertEquals("parse cache: 1 hits, 1 misses", cache.getStatistics());
+    }
+
+    @Test
+    public void unwritableCacheDirectoryIsSkipped() throws IOException {
+        Path notADirectory = Files.createTempFile("parse-cache", ".bin");
+        ParseCache cache = new ParseCache(notADirectory.resolve("entries"));
+
+        assertEquals("value1", cache.load(file, "jdk", parser).get("key"));
+        assertEquals("value1", cache.load(file, "jdk", parser).get("key"));
+
+        assertEquals(2, parsed.get());
+        assertEquals("parse cache: 0 hits, 2 misses, 2 write failures", cache.getStatistics());
+        assertNotNull(cache.getWriteFailure());
+    }
+}
@@ -0,0 +1,103 @@
+package org.codehaus.mojo.properties;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ParsedSourceCacheTest {
+
+    private final ParsedSourceCache cache = new ParsedSourceCache();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void concurrentRequestsShareOneLoad() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Map<String, String>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> cache.get("source", () -> {
+                    loads.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return Collections.singletonMap("key", "value");
+                })));
+            }
+            started.await(5, TimeUnit.SECONDS);
+            release.countDown();
+
+            Map<String, String> first = results.get(0).get();
+            for (Future<Map<String, String>> result : results) {
+                assertSame(first, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals("value", cache.get("source", () -> null).get("key"));
+        assertEquals("parsed source cache: 8 hits, 1 misses", cache.getStatistics());
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void resultIsReadOnly() throws IOException {
+        cache.get("source", HashMap::new).put("key", "value");
+    }
+
+    @Test
+    public void missingSourceIsShared() throws IOException {
+        assertNull(cache.get("source", () -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.get("source", () -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void failedLoadIsNotKept() throws IOException {
+        try {
+            cache.get("source", () -> {
+                throw new IOException("unavailable");
+            });
+            fail("failing source was read");
+        } catch (IOException e) {
+            assertEquals("unavailable", e.getMessage());
+        }
+
+        assertEquals(
+                "value",
+                cache.get("source", () -> Collections.singletonMap("key", "value"))
+                        .get("key"));
+    }
+}
@@ -0,0 +1,36 @@
+package org.codehaus.mojo.properties;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.mojo.properties.managers.JdkPropertiesManager;
+import org.codehaus.mojo.properties.managers.YmlPropertiesManager;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PropertiesManagerRegistryTest {
+
+    @Test
+    public void extensionsAreLookedUpOnce() {
+        AtomicInteger lookups = new AtomicInteger();
+        YmlPropertiesManager yml = new YmlPropertiesManager() {
+            @Override
+            public boolean isExtensionSupport(String extension) {
+                lookups.incrementAndGet();
+                return super.isExtensionSupport(extension);
+            }
+        };
+        PropertiesManagerRegistry registry =
+                new PropertiesManagerRegistry(Arrays.asList(yml, new JdkPropertiesManager()));
+
+        assertTrue(registry.find("YML").get() == yml);
+        assertTrue(registry.find("yml").get() == yml);
+        assertFalse(registry.find("txt").isPresent());
+        assertFalse(registry.find("txt").isPresent());
+
+        assertEquals(2, lookups.get());
+    }
+}
@@ -19,7 +19,9 @@ package org.codehaus.mojo.properties;
  * under the License.
  */
 
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.maven.plugin.MojoFailureException;
 import org.junit.Test;
@@ -27,7 +29,9 @@ import org.junit.Test;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
 /**
@@ -103,6 +107,44 @@ public class PropertyResolverTest {
         assertEquals("value value value value", value4);
     }
 
+    @Test
+    public void nestedDefaultValueIsResolved() {
+        Properties properties = new Properties();
+        properties.setProperty("p1", "${a:${b:c}}");
+        properties.setProperty("p2", "[${a:${b:c}}]");
+        properties.setProperty("p3", "[${unknown:${b:c}}]");
+        properties.setProperty("a", "value");
+
+        assertEquals("value", resolver.getPropertyValue("p1", properties, new Properties(), true));
+        assertEquals("[value]", resolver.getPropertyValue("p2", properties, new Properties(), true));
+        assertEquals("[c]", resolver.getPropertyValue("p3", properties, new Properties(), true));
+    }
+
+    @Test
+    public void resolvedValuesAreSharedWithinResolution() {
+        Properties properties = new Properties();
+        properties.setProperty("base.dir", "/${root}/base");
+        properties.setProperty("root", "r");
+        properties.setProperty("p1", "${base.dir}/p1");
+        properties.setProperty("p2", "${base.dir}/p2");
+
+        PropertyResolution resolution =
+                resolver.newResolution(PropertyResolver.snapshot(properties), EnvironmentSnapshot.capture(), false);
+
+        assertEquals("/r/base/p1", resolution.getPropertyValue("p1"));
+        assertEquals("/r/base/p2", resolution.getPropertyValue("p2"));
+        assertEquals("r", resolution.getPropertyValue("root"));
+    }
+
+    @Test
+    public void parsedTemplatesAreShared() {
+        PropertyTemplate template = resolver.getTemplate("${project.basedir}/target", false);
+
+        assertSame(template, resolver.getTemplate("${project.basedir}/target", false));
+        assertNotSame(template, resolver.getTemplate("${project.basedir}/target", true));
+        assertThat(resolver.getCacheStatistics(), containsString("2 entries, 1 hits, 2 misses"));
+    }
+
     @Test
     public void malformedPlaceholderIsLeftAsIs() {
         Properties properties = new Properties();
@@ -189,6 +231,68 @@ public class PropertyResolverTest {
         assertNull(value);
     }
 
+    @Test
+    public void allCircularReferencesAreReported() {
+        Properties properties = new Properties();
+        properties.setProperty("p1", "${p2}");
+        properties.setProperty("p2", "${p1}");
+        properties.setProperty("p3", "${p3}");
+        properties.setProperty("p4", "value");
+
+        PropertyResolution resolution =
+                resolver.newResolution(PropertyResolver.snapshot(properties), EnvironmentSnapshot.capture(), false);
+        try {
+            resolution.resolve(properties.stringPropertyNames(), null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("p1=${p2}"));
+            assertThat(e.getMessage(), containsString("p2=${p1}"));
+            assertThat(e.getMessage(), containsString("p3=${p3} -> p3"));
+        }
+    }
+
+    @Test
+    public void longReferenceChainIsResolved() {
+        Properties properties = new Properties();
+        properties.setProperty("p0", "value");
+        for (int i = 1; i <= 20000; i++) {
+            properties.setProperty("p" + i, "${p" + (i - 1) + "}");
+        }
+
+        Map<String, String> values = resolver.newResolution(
+                        PropertyResolver.snapshot(properties), EnvironmentSnapshot.capture(), false)
+                .resolve(properties.stringPropertyNames(), null);
+
+        assertEquals(20001, values.size());
+        assertEquals("value", values.get("p20000"));
+    }
+
+    @Test
+    public void independentPropertiesAreResolvedConcurrently() {
+        Properties properties = new Properties();
+        properties.setProperty("base", "b");
+        for (int i = 0; i < 1000; i++) {
+            properties.setProperty("level1." + i, "${base}/" + i);
+            properties.setProperty("level2." + i, "${level1." + i + "}/${base}/${level1." + (999 - i) + "}");
+        }
+
+        Map<String, String> sequential = resolver.newResolution(
+                        PropertyResolver.snapshot(properties), EnvironmentSnapshot.capture(), false)
+                .resolve(properties.stringPropertyNames(), null);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Map<String, String> concurrent = resolver.newResolution(
+                            PropertyResolver.snapshot(properties), EnvironmentSnapshot.capture(), false)
+                    .resolve(properties.stringPropertyNames(), pool);
+
+            assertEquals(sequential, concurrent);
+            assertEquals("b/1/b/b/998", concurrent.get("level2.1"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     @Test
     public void valueIsObtainedFromSystemProperty() {
         Properties saved = System.getProperties();
@@ -219,6 +323,26 @@ public class PropertyResolverTest {
         assertEquals("env.value", value);
     }
 
+    @Test
+    public void systemPropertiesAreReadFromSnapshot() {
+        EnvironmentSnapshot snapshot;
+        System.setProperty("system.property", "captured");
+        try {
+            snapshot = EnvironmentSnapshot.capture();
+            System.setProperty("system.property", "changed");
+        } finally {
+            System.clearProperty("system.property");
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty("p1", "${system.property}");
+
+        assertEquals(
+                "captured",
+                resolver.newResolution(PropertyResolver.snapshot(properties), snapshot, false)
+                        .getPropertyValue("p1"));
+    }
+
     @Test
     public void missingPropertyIsTolerated() {
         assertEquals("", resolver.getPropertyValue("non-existent", new Properties(), null));
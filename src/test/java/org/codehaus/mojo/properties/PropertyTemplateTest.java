@@ -0,0 +1,92 @@
+package org.codehaus.mojo.properties;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PropertyTemplateTest {
+
+    @Test
+    public void plainValueHasNoPlaceholders() {
+        PropertyTemplate template = PropertyTemplate.parse("plain value", false);
+
+        assertFalse(template.hasPlaceholders());
+        assertEquals(1, template.getSegments().size());
+    }
+
+    @Test
+    public void literalsAndPlaceholdersAreSplit() {
+        PropertyTemplate template = PropertyTemplate.parse("http://${host}:${port}/", false);
+
+        List<PropertyTemplate.Segment> segments = template.getSegments();
+        assertTrue(template.hasPlaceholders());
+        assertEquals(5, segments.size());
+        assertEquals("host", segments.get(1).getKey());
+        assertEquals("port", segments.get(3).getKey());
+
+        StringBuilder literal = new StringBuilder();
+        template.appendLiteral(segments.get(4), literal);
+        assertEquals("/", literal.toString());
+    }
+
+    @Test
+    public void separatorIsPartOfKeyWithoutDefaultValues() {
+        PropertyTemplate template = PropertyTemplate.parse("${a:b}", false);
+
+        assertEquals("a:b", template.getSegments().get(0).getKey());
+        assertNull(template.getSegments().get(0).getDefaultValue());
+    }
+
+    @Test
+    public void nestedDefaultValueIsParsedAsWhole() {
+        PropertyTemplate template = PropertyTemplate.parse("${a:${b:c}}x", true);
+
+        List<PropertyTemplate.Segment> segments = template.getSegments();
+        assertEquals(2, segments.size());
+        assertEquals("a", segments.get(0).getKey());
+
+        PropertyTemplate defaultValue = segments.get(0).getDefaultValue();
+        assertEquals("${b:c}", defaultValue.getRaw());
+        assertEquals("b", defaultValue.getSegments().get(0).getKey());
+        assertEquals("c", defaultValue.getSegments().get(0).getDefaultValue().getRaw());
+    }
+
+    @Test
+    public void emptyDefaultValueIsIgnored() {
+        PropertyTemplate template = PropertyTemplate.parse("${a:}", true);
+
+        assertEquals("a", template.getSegments().get(0).getKey());
+        assertNull(template.getSegments().get(0).getDefaultValue());
+    }
+
+    @Test
+    public void malformedPlaceholderIsLiteral() {
+        PropertyTemplate template = PropertyTemplate.parse("x ${malformed:defVal", true);
+
+        assertFalse(template.hasPlaceholders());
+    }
+}
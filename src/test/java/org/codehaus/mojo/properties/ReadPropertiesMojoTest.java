@@ -4,20 +4,44 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
+import com.sun.net.httpserver.HttpServer;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.FileSet;
 import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.model.Profile;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.mojo.properties.managers.JdkPropertiesManager;
+import org.codehaus.mojo.properties.managers.YmlPropertiesManager;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class ReadPropertiesMojoTest {
     private static final String NEW_LINE = System.getProperty("line.separator");
@@ -28,7 +52,8 @@ public class ReadPropertiesMojoTest {
     @Before
     public void setUp() {
         projectStub = new MavenProject();
-        readPropertiesMojo = new ReadPropertiesMojo(Collections.singletonList(new JdkPropertiesManager()));
+        readPropertiesMojo =
+                new ReadPropertiesMojo(Collections.singletonList(new JdkPropertiesManager()), new PropertyResolver());
         readPropertiesMojo.setProject(projectStub);
     }
 
@@ -266,6 +291,928 @@ public class ReadPropertiesMojoTest {
         assertEquals("${unknown:  }", value13);
     }
 
+    @Test
+    public void readPropertiesWithParallelResolution() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("base", "value");
+        for (int i = 0; i < 100; i++) {
+            properties.setProperty("p" + i, "${base}-" + i + "-${unknown}");
+            properties.setProperty("q" + i, "${p" + i + "}");
+        }
+
+        Model model = new Model();
+        model.setProperties(properties);
+        MavenProject project = new MavenProject(model);
+        readPropertiesMojo.setProject(project);
+        readPropertiesMojo.setParallelResolution(true);
+        readPropertiesMojo.setResolutionThreads(4);
+        readPropertiesMojo.execute();
+
+        Properties processed = readPropertiesMojo.getProject().getProperties();
+
+        assertEquals(201, processed.size());
+        assertEquals("value-42-${unknown}", processed.getProperty("p42"));
+        assertEquals("value-42-${unknown}", processed.getProperty("q42"));
+    }
+
+    @Test
+    public void secondExecutionResolvesChangedPropertiesAndDependents() throws Exception {
+        File first = File.createTempFile("prop-test", ".properties");
+        first.deleteOnExit();
+        try (FileWriter writer = new FileWriter(first)) {
+            writer.write("url=http://${host}:${port}/" + NEW_LINE);
+            writer.write("port=8080" + NEW_LINE);
+            writer.write("unrelated=value" + NEW_LINE);
+        }
+        File second = File.createTempFile("prop-test", ".properties");
+        second.deleteOnExit();
+        try (FileWriter writer = new FileWriter(second)) {
+            writer.write("host=example.com" + NEW_LINE);
+            writer.write("proxy=${url}proxy" + NEW_LINE);
+        }
+
+        readPropertiesMojo.setFiles(new File[] {first});
+        readPropertiesMojo.execute();
+        assertEquals("http://${host}:8080/", projectStub.getProperties().getProperty("url"));
+
+        readPropertiesMojo.setFiles(new File[] {second});
+        readPropertiesMojo.execute();
+
+        Properties projectProperties = projectStub.getProperties();
+        assertEquals(5, projectProperties.size());
+        assertEquals("http://example.com:8080/", projectProperties.getProperty("url"));
+        assertEquals("http://example.com:8080/proxy", projectProperties.getProperty("proxy"));
+        assertEquals("value", projectProperties.getProperty("unrelated"));
+    }
+
+    @Test
+    public void secondExecutionResolvesUnresolvedAndExternallyChangedProperties() throws Exception {
+        File first = File.createTempFile("prop-test", ".properties");
+        first.deleteOnExit();
+        try (FileWriter writer = new FileWriter(first)) {
+            writer.write("x=${read.properties.probe}" + NEW_LINE);
+            writer.write("a=1" + NEW_LINE);
+            writer.write("b=2" + NEW_LINE);
+        }
+        File second = File.createTempFile("prop-test", ".properties");
+        second.deleteOnExit();
+        try (FileWriter writer = new FileWriter(second)) {
+            writer.write("c=3" + NEW_LINE);
+        }
+
+        readPropertiesMojo.setFiles(new File[] {first});
+        readPropertiesMojo.execute();
+        assertEquals("${read.properties.probe}", projectStub.getProperties().getProperty("x"));
+
+        // changed outside of the plugin
+        projectStub.getProperties().setProperty("b", "${a}");
+        readPropertiesMojo.setFiles(new File[] {second});
+        readPropertiesMojo.execute();
+        assertEquals("1", projectStub.getProperties().getProperty("b"));
+        assertEquals("3", projectStub.getProperties().getProperty("c"));
+
+        // like set-system-properties does
+        System.setProperty("read.properties.probe", "bar");
+        try {
+            EnvironmentSnapshot.invalidate(null);
+            readPropertiesMojo.execute();
+        } finally {
+            System.clearProperty("read.properties.probe");
+        }
+        assertEquals("bar", projectStub.getProperties().getProperty("x"));
+    }
+
+    @Test
+    public void readPropertiesWithEnvironmentVariable() throws Exception {
+        Map.Entry<String, String> variable =
+                System.getenv().entrySet().iterator().next();
+
+        Properties properties = new Properties();
+        properties.setProperty("p1", "${env." + variable.getKey() + "}");
+        properties.setProperty("p2", "${env.PROPERTIES_PLUGIN_UNDEFINED}");
+
+        Model model = new Model();
+        model.setProperties(properties);
+        MavenProject project = new MavenProject(model);
+        readPropertiesMojo.setProject(project);
+        readPropertiesMojo.execute();
+
+        Properties processed = readPropertiesMojo.getProject().getProperties();
+
+        assertEquals(variable.getValue(), processed.getProperty("p1"));
+        assertEquals("${env.PROPERTIES_PLUGIN_UNDEFINED}", processed.getProperty("p2"));
+    }
+
+    @Test
+    public void exponentialExpansionFails() throws Exception {
+        Properties properties = new Properties();
+        for (int i = 0; i < 40; i++) {
+            properties.setProperty("p" + i, "${p" + (i + 1) + "}${p" + (i + 1) + "}");
+        }
+        properties.setProperty("p40", "x");
+
+        Model model = new Model();
+        model.setProperties(properties);
+        readPropertiesMojo.setProject(new MavenProject(model));
+        readPropertiesMojo.setMaxExpandedValueLength(1000);
+
+        try {
+            readPropertiesMojo.execute();
+            fail();
+        } catch (MojoFailureException e) {
+            assertThat(e.getMessage(), containsString("exceeds the maximum value length of 1000"));
+            assertThat(e.getMessage(), containsString("p30 -> p31 -> p32"));
+        }
+    }
+
+    @Test
+    public void expansionStepsAreLimitedPerProperty() throws Exception {
+        Properties properties = new Properties();
+        for (int i = 0; i < 40; i++) {
+            properties.setProperty("p" + i, "${p" + (i + 1) + "}${p" + (i + 1) + "}");
+        }
+        properties.setProperty("p40", "");
+        // many cheap properties stay below the limit, it is not shared by all of them
+        for (int i = 0; i < 200; i++) {
+            properties.setProperty("cheap" + i, "${p35}");
+        }
+
+        Model model = new Model();
+        model.setProperties(properties);
+        readPropertiesMojo.setProject(new MavenProject(model));
+        readPropertiesMojo.setMaxExpansionSteps(1000);
+
+        try {
+            readPropertiesMojo.execute();
+            fail();
+        } catch (MojoFailureException e) {
+            assertThat(e.getMessage(), containsString("exceeds the maximum number of expansion steps of 1000"));
+            assertThat(e.getMessage(), containsString("p31 -> p32"));
+        }
+
+        properties.keySet().removeIf(key -> key.toString().matches("p([0-9]|[1-2][0-9]|3[01])"));
+        readPropertiesMojo.execute();
+
+        assertEquals("", readPropertiesMojo.getProject().getProperties().getProperty("cheap0"));
+    }
+
+    @Test
+    public void deepReferenceChainFails() throws Exception {
+        Properties properties = new Properties();
+        for (int i = 0; i < 10; i++) {
+            properties.setProperty("p" + i, "${p" + (i + 1) + "}");
+        }
+        properties.setProperty("p10", "x");
+
+        Model model = new Model();
+        model.setProperties(properties);
+        readPropertiesMojo.setProject(new MavenProject(model));
+        readPropertiesMojo.setMaxReferenceDepth(5);
+
+        try {
+            readPropertiesMojo.execute();
+            fail();
+        } catch (MojoFailureException e) {
+            assertThat(e.getMessage(), containsString("exceeds the maximum reference depth of 5"));
+            assertThat(e.getMessage(), containsString("p4 -> p5 -> p6 -> p7 -> p8 -> p9 -> p10"));
+        }
+    }
+
+    @Test
+    public void readPropertiesWithLazyResolution() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("p1", "${p2}");
+        properties.setProperty("p2", "value");
+        properties.setProperty("p3", "${p2}/p3");
+        properties.setProperty("p4", "${p3}/p4");
+
+        Model model = new Model();
+        model.setProperties(properties);
+        MavenProject project = new MavenProject(model);
+        readPropertiesMojo.setProject(project);
+        readPropertiesMojo.setLazyResolution(true);
+        readPropertiesMojo.execute();
+
+        LazyResolvingProperties processed =
+                (LazyResolvingProperties) readPropertiesMojo.getProject().getProperties();
+
+        assertEquals(4, processed.getUnresolvedCount());
+        assertEquals("value", processed.getProperty("p1"));
+        assertEquals(3, processed.getUnresolvedCount());
+        assertEquals("value", processed.get("p2"));
+        assertEquals(2, processed.getUnresolvedCount());
+        assertTrue(processed.containsKey("p3"));
+        assertEquals(2, processed.getUnresolvedCount());
+
+        // enumerating the keys goes through entrySet() and resolves all of them
+        assertEquals(4, processed.stringPropertyNames().size());
+        assertEquals(0, processed.getUnresolvedCount());
+        assertEquals("value/p3/p4", processed.getProperty("p4"));
+    }
+
+    @Test
+    public void copyingLazilyResolvedPropertiesResolvesAll() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("p1", "${p2}");
+        properties.setProperty("p2", "value");
+
+        Model model = new Model();
+        model.setProperties(properties);
+        readPropertiesMojo.setProject(new MavenProject(model));
+        readPropertiesMojo.setLazyResolution(true);
+        readPropertiesMojo.execute();
+
+        LazyResolvingProperties processed =
+                (LazyResolvingProperties) readPropertiesMojo.getProject().getProperties();
+        Properties copy = new Properties();
+        copy.putAll(processed);
+
+        assertEquals(0, processed.getUnresolvedCount());
+        assertEquals("value", copy.getProperty("p1"));
+    }
+
+    @Test
+    public void lazyResolutionReportsCircularDefinitionsWhenExecutionEnds() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("p1", "value");
+        properties.setProperty("never.read", "${never.read}");
+
+        Model model = new Model();
+        model.setProperties(properties);
+        readPropertiesMojo.setProject(new MavenProject(model));
+        readPropertiesMojo.setLazyResolution(true);
+
+        try {
+            readPropertiesMojo.execute();
+            fail();
+        } catch (MojoFailureException e) {
+            assertThat(e.getMessage(), containsString("never.read"));
+        }
+    }
+
+    @Test
+    public void lazyResolutionReportsExceededLimitsWhenExecutionEnds() throws Exception {
+        Properties properties = new Properties();
+        for (int i = 0; i < 40; i++) {
+            properties.setProperty("p" + i, "${p" + (i + 1) + "}${p" + (i + 1) + "}");
+        }
+        properties.setProperty("p40", "x");
+
+        Model model = new Model();
+        model.setProperties(properties);
+        readPropertiesMojo.setProject(new MavenProject(model));
+        readPropertiesMojo.setLazyResolution(true);
+        readPropertiesMojo.setMaxExpandedValueLength(1000);
+
+        try {
+            readPropertiesMojo.execute();
+            fail();
+        } catch (MojoFailureException e) {
+            assertThat(e.getMessage(), containsString("exceeds the maximum value length of 1000"));
+            assertThat(e.getMessage(), containsString("p30 -> p31 -> p32"));
+        }
+    }
+
+    @Test
+    public void lazyResolutionTracksAllMapOperations() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("host", "localhost");
+        properties.setProperty("url", "http://${host}/");
+        properties.setProperty("p1", "${host}");
+        properties.setProperty("p2", "${host}");
+        properties.setProperty("p3", "${host}");
+        properties.setProperty("p4", "${host}");
+
+        Model model = new Model();
+        model.setProperties(properties);
+        MavenProject project = new MavenProject(model);
+        readPropertiesMojo.setProject(project);
+        readPropertiesMojo.setLazyResolution(true);
+        readPropertiesMojo.execute();
+
+        LazyResolvingProperties processed =
+                (LazyResolvingProperties) readPropertiesMojo.getProject().getProperties();
+
+        assertEquals("localhost", processed.putIfAbsent("p1", "other"));
+        assertEquals("localhost", processed.getOrDefault("p2", "other"));
+        assertFalse(processed.replace("p3", "${host}", "other"));
+        assertEquals("localhost/", processed.merge("p3", "/", (a, b) -> (String) a + b));
+        assertEquals("localhost", processed.computeIfAbsent("p4", key -> "other"));
+        assertEquals("example.org", processed.compute("host", (key, value) -> "example.org"));
+        // values put by map operations are taken as they are, other keys are resolved against them
+        assertEquals("http://example.org/", processed.getProperty("url"));
+        assertEquals(0, processed.getUnresolvedCount());
+
+        processed.setProperty("p5", "${host}");
+        processed.markAllUnresolved();
+        processed.clear();
+        assertEquals(0, processed.getUnresolvedCount());
+        assertTrue(processed.isEmpty());
+    }
+
+    @Test
+    public void deferredExecutionsAreResolvedByLastExecution() throws Exception {
+        Plugin plugin = new Plugin();
+        plugin.setGroupId("org.codehaus.mojo");
+        plugin.setArtifactId("properties-maven-plugin");
+        for (String id : new String[] {"defaults", "overrides"}) {
+            PluginExecution execution = new PluginExecution();
+            execution.setId(id);
+            execution.setPhase("initialize");
+            execution.addGoal("read-project-properties");
+            plugin.addExecution(execution);
+        }
+        Model model = new Model();
+        model.setBuild(new Build());
+        model.getBuild().addPlugin(plugin);
+        model.getProperties().setProperty("url", "http://${host}/");
+        MavenProject project = new MavenProject(model);
+
+        String[] executionId = {"defaults"};
+        ReadPropertiesMojo mojo =
+                new ReadPropertiesMojo(Collections.singletonList(new JdkPropertiesManager()), new PropertyResolver()) {
+                    @Override
+                    boolean isLastExecution() {
+                        return isLastExecution(plugin.getKey(), "read-project-properties", executionId[0]);
+                    }
+                };
+
+        File defaults = File.createTempFile("prop-test", ".properties");
+        defaults.deleteOnExit();
+        try (FileWriter writer = new FileWriter(defaults)) {
+            writer.write("host=localhost" + NEW_LINE);
+        }
+        mojo.setProject(project);
+        mojo.setDeferResolution(true);
+        mojo.setFiles(new File[] {defaults});
+        mojo.execute();
+
+        assertEquals("http://${host}/", project.getProperties().getProperty("url"));
+
+        File overrides = File.createTempFile("prop-test", ".properties");
+        overrides.deleteOnExit();
+        try (FileWriter writer = new FileWriter(overrides)) {
+            writer.write("host=example.com" + NEW_LINE);
+        }
+        executionId[0] = "overrides";
+        mojo.setFiles(new File[] {overrides});
+        mojo.execute();
+
+        assertEquals("http://example.com/", project.getProperties().getProperty("url"));
+    }
+
+    @Test
+    public void deferredPropertiesAreResolvedWhenLastExecutionIsSkippedOrUnbound() throws Exception {
+        Plugin plugin = new Plugin();
+        plugin.setGroupId("org.codehaus.mojo");
+        plugin.setArtifactId("properties-maven-plugin");
+        String[][] executions = {{"defaults", "initialize"}, {"local", "initialize"}, {"unbound", null}};
+        for (String[] id : executions) {
+            PluginExecution execution = new PluginExecution();
+            execution.setId(id[0]);
+            execution.setPhase(id[1]);
+            execution.addGoal("read-project-properties");
+            plugin.addExecution(execution);
+        }
+        Model model = new Model();
+        model.setBuild(new Build());
+        model.getBuild().addPlugin(plugin);
+        MavenProject project = new MavenProject(model);
+
+        String[] executionId = {"defaults"};
+        ReadPropertiesMojo mojo =
+                new ReadPropertiesMojo(Collections.singletonList(new JdkPropertiesManager()), new PropertyResolver()) {
+                    @Override
+                    boolean isLastExecution() {
+                        return isLastExecution(plugin.getKey(), "read-project-properties", executionId[0]);
+                    }
+                };
+        File defaults = File.createTempFile("prop-test", ".properties");
+        defaults.deleteOnExit();
+        try (FileWriter writer = new FileWriter(defaults)) {
+            writer.write("host=localhost" + NEW_LINE);
+            writer.write("url=http://${host}/" + NEW_LINE);
+        }
+        mojo.setProject(project);
+        mojo.setDeferResolution(true);
+        mojo.setFiles(new File[] {defaults});
+        mojo.execute();
+
+        assertEquals("http://${host}/", project.getProperties().getProperty("url"));
+
+        // the unbound execution never runs, the last bound one is skipped
+        executionId[0] = "local";
+        mojo.setSkipLoadProperties(true);
+        mojo.execute();
+
+        assertEquals("http://localhost/", project.getProperties().getProperty("url"));
+    }
+
+    @Test
+    public void concurrentlyLoadedFilesAreMergedInDeclarationOrder() throws Exception {
+        File[] files = new File[20];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = File.createTempFile("prop-test", ".properties");
+            files[i].deleteOnExit();
+            try (FileWriter writer = new FileWriter(files[i])) {
+                writer.write("shared=" + i + NEW_LINE);
+                writer.write("key" + i + "=value" + i + NEW_LINE);
+            }
+        }
+        MavenProject project = new MavenProject();
+        readPropertiesMojo.setProject(project);
+        readPropertiesMojo.setLoadThreads(4);
+        readPropertiesMojo.setFiles(files);
+        readPropertiesMojo.execute();
+
+        assertEquals("19", project.getProperties().getProperty("shared"));
+        assertEquals("value7", project.getProperties().getProperty("key7"));
+        assertEquals(21, project.getProperties().size());
+
+        project = new MavenProject();
+        project.getProperties().setProperty("shared", "project");
+        readPropertiesMojo.setProject(project);
+        readPropertiesMojo.setOverride(false);
+        readPropertiesMojo.execute();
+
+        assertEquals("project", project.getProperties().getProperty("shared"));
+    }
+
+    @Test
+    public void missingFileFailsWhenLoadingConcurrently() throws Exception {
+        File existing = getPropertyFileForTesting();
+        File missing = new File(existing.getParentFile(), existing.getName() + ".missing");
+        readPropertiesMojo.setProject(new MavenProject());
+        readPropertiesMojo.setLoadThreads(4);
+        readPropertiesMojo.setFiles(new File[] {existing, missing, existing});
+        try {
+            readPropertiesMojo.execute();
+            fail("missing file not reported");
+        } catch (MojoExecutionException e) {
+            assertThat(e.getMessage(), containsString(missing.getName()));
+        }
+    }
+
+    @Test
+    public void urlIsFetchedOnce() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/test.properties", exchange -> {
+            requests.incrementAndGet();
+            byte[] bytes = "remote=value\n".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            String url = "http://localhost:" + server.getAddress().getPort() + "/test.properties";
+            MavenProject project = new MavenProject();
+            readPropertiesMojo.setProject(project);
+            readPropertiesMojo.setUrls(new String[] {url});
+            readPropertiesMojo.execute();
+
+            assertEquals("value", project.getProperties().getProperty("remote"));
+            assertEquals(1, requests.get());
+
+            // another module of the build uses the parsed source
+            readPropertiesMojo.setProject(new MavenProject());
+            readPropertiesMojo.execute();
+
+            assertEquals(1, requests.get());
+
+            // another build
+            ReadPropertiesMojo mojo = new ReadPropertiesMojo(
+                    Collections.singletonList(new JdkPropertiesManager()), new PropertyResolver());
+            mojo.setProject(new MavenProject());
+            mojo.setUrls(new String[] {url});
+            mojo.setCacheRemoteResources(true);
+            mojo.setRemoteResourceCache(new RemoteResourceCache(
+                    Files.createTempDirectory("remote-cache"), false, new HttpSourceClient(1000, 1000, 0, 0, 4)));
+            mojo.execute();
+
+            assertEquals(2, requests.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void remoteResourcesAreOnlyCachedWhenEnabled() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/secret.properties", exchange -> {
+            byte[] bytes = "password=secret\n".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            Path cacheDirectory = Files.createTempDirectory("remote-cache");
+            MavenProject project = new MavenProject();
+            readPropertiesMojo.setProject(project);
+            readPropertiesMojo.setUrls(
+                    new String[] {"http://localhost:" + server.getAddress().getPort() + "/secret.properties"});
+            readPropertiesMojo.setRemoteResourceCache(
+                    new RemoteResourceCache(cacheDirectory, false, new HttpSourceClient(1000, 1000, 0, 0, 4)));
+            readPropertiesMojo.execute();
+
+            assertEquals("secret", project.getProperties().getProperty("password"));
+            try (Stream<Path> files = Files.list(cacheDirectory)) {
+                assertEquals(0, files.count());
+            }
+
+            // another source, the parsed one is reused within the session
+            readPropertiesMojo.setUrls(
+                    new String[] {"http://localhost:" + server.getAddress().getPort() + "/secret.properties?v=2"});
+            readPropertiesMojo.setCacheRemoteResources(true);
+            readPropertiesMojo.execute();
+
+            try (Stream<Path> files = Files.list(cacheDirectory)) {
+                assertEquals(2, files.count());
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void urlIsFetchedOnceWithInputFingerprint() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/test.properties", exchange -> {
+            requests.incrementAndGet();
+            byte[] bytes = "remote=value\n".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            MavenProject project = new MavenProject();
+            project.getBuild().setDirectory(Files.createTempDirectory("target").toString());
+            readPropertiesMojo.setProject(project);
+            readPropertiesMojo.setUrls(
+                    new String[] {"http://localhost:" + server.getAddress().getPort() + "/test.properties"});
+            readPropertiesMojo.setUseInputFingerprint(true);
+            readPropertiesMojo.execute();
+
+            assertEquals("value", project.getProperties().getProperty("remote"));
+            assertEquals(1, requests.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void parsedFilesAreCachedInBuildDirectory() throws Exception {
+        File file = getPropertyFileForTesting();
+        Path buildDirectory = Files.createTempDirectory("target");
+        MavenProject project = new MavenProject();
+        project.getBuild().setDirectory(buildDirectory.toString());
+        readPropertiesMojo.setProject(project);
+        readPropertiesMojo.setFiles(new File[] {file});
+        readPropertiesMojo.setUseParseCache(true);
+        readPropertiesMojo.execute();
+
+        Properties expected = new Properties();
+        try (FileReader reader = new FileReader(file)) {
+            expected.load(reader);
+        }
+        assertEquals(expected, project.getProperties());
+        assertTrue(Files.isDirectory(buildDirectory.resolve("properties-maven-plugin/parse-cache")));
+
+        project = new MavenProject();
+        project.getBuild().setDirectory(buildDirectory.toString());
+        readPropertiesMojo.setProject(project);
+        readPropertiesMojo.execute();
+
+        assertEquals(expected, project.getProperties());
+    }
+
+    @Test
+    public void parseCacheIsNotUsedByDefault() throws Exception {
+        Path buildDirectory = Files.createTempDirectory("target");
+        MavenProject project = new MavenProject();
+        project.getBuild().setDirectory(buildDirectory.toString());
+        readPropertiesMojo.setProject(project);
+        readPropertiesMojo.setFiles(new File[] {getPropertyFileForTesting()});
+        readPropertiesMojo.execute();
+
+        assertFalse(Files.exists(buildDirectory.resolve("properties-maven-plugin/parse-cache")));
+    }
+
+    @Test
+    public void unwritableParseCacheDoesNotFailTheBuild() throws Exception {
+        File file = getPropertyFileForTesting();
+        Path buildDirectory = Files.createTempDirectory("target");
+        Files.createFile(buildDirectory.resolve("properties-maven-plugin"));
+        MavenProject project = new MavenProject();
+        project.getBuild().setDirectory(buildDirectory.toString());
+        readPropertiesMojo.setProject(project);
+        readPropertiesMojo.setFiles(new File[] {file});
+        readPropertiesMojo.setUseParseCache(true);
+
+        readPropertiesMojo.execute();
+
+        Properties expected = new Properties();
+        try (FileReader reader = new FileReader(file)) {
+            expected.load(reader);
+        }
+        assertEquals(expected, project.getProperties());
+    }
+
+    @Test
+    public void yamlDocumentsAreSelectedByActiveProfiles() throws Exception {
+        Path yaml = Files.createTempFile("prop-test", ".yml");
+        yaml.toFile().deleteOnExit();
+        Files.write(
+                yaml,
+                Arrays.asList(
+                        "db: {host: localhost, port: 5432}",
+                        "---",
+                        "profiles: prod",
+                        "db: {host: prod-db}",
+                        "---",
+                        "profiles: dev, test",
+                        "db: {host: dev-db}"),
+                StandardCharsets.UTF_8);
+        Path buildDirectory = Files.createTempDirectory("target");
+        ReadPropertiesMojo mojo = new ReadPropertiesMojo(
+                Arrays.asList(new JdkPropertiesManager(), new YmlPropertiesManager()), new PropertyResolver());
+        mojo.setFiles(new File[] {yaml.toFile()});
+        mojo.setYamlProfileKey("profiles");
+
+        for (String[] profileAndHost : new String[][] {{"prod", "prod-db"}, {"test", "dev-db"}}) {
+            MavenProject project = new MavenProject();
+            project.getBuild().setDirectory(buildDirectory.toString());
+            Profile active = new Profile();
+            active.setId(profileAndHost[0]);
+            project.setActiveProfiles(Collections.singletonList(active));
+            mojo.setProject(project);
+            mojo.execute();
+
+            assertEquals(profileAndHost[1], project.getProperties().getProperty("db.host"));
+            assertEquals("5432", project.getProperties().getProperty("db.port"));
+        }
+    }
+
+    @Test
+    public void yamlLimitsAreReported() throws Exception {
+        Path yaml = Files.createTempFile("prop-test", ".yaml");
+        yaml.toFile().deleteOnExit();
+        Files.write(yaml, Collections.singletonList("key: a value longer than the limit"), StandardCharsets.UTF_8);
+        ReadPropertiesMojo mojo =
+                new ReadPropertiesMojo(Collections.singletonList(new YmlPropertiesManager()), new PropertyResolver());
+        mojo.setProject(projectStub);
+        mojo.setFiles(new File[] {yaml.toFile()});
+        mojo.setYamlCodePointLimit(10);
+
+        try {
+            mojo.execute();
+            fail("code point limit was ignored");
+        } catch (MojoExecutionException e) {
+            assertThat(e.getCause().getMessage(), containsString("codePointLimit=10"));
+        }
+    }
+
+    @Test
+    public void fileSetsAreReadInPathOrderAfterFiles() throws Exception {
+        Path directory = Files.createTempDirectory("config");
+        Files.createDirectories(directory.resolve("b"));
+        Files.write(directory.resolve("a.properties"), Collections.singletonList("key=a"));
+        Files.write(directory.resolve("b/c.properties"), Collections.singletonList("key=c"));
+        Files.write(directory.resolve("b/d.yml"), Collections.singletonList("other: d"));
+        Files.write(directory.resolve("b/e.txt"), Collections.singletonList("key=e"));
+        Path file = Files.createTempFile("prop-test", ".properties");
+        Files.write(file, Arrays.asList("key=file", "first=true"));
+        FileSet fileSet = new FileSet();
+        fileSet.setDirectory(directory.toString());
+        fileSet.addInclude("**/*.properties");
+        fileSet.addInclude("**/*.yml");
+        ReadPropertiesMojo mojo = new ReadPropertiesMojo(
+                Arrays.asList(new JdkPropertiesManager(), new YmlPropertiesManager()), new PropertyResolver());
+        mojo.setProject(projectStub);
+        mojo.setFiles(new File[] {file.toFile()});
+        mojo.setFileSets(Collections.singletonList(fileSet));
+
+        mojo.execute();
+
+        assertEquals("c", projectStub.getProperties().getProperty("key"));
+        assertEquals("d", projectStub.getProperties().getProperty("other"));
+        assertEquals("true", projectStub.getProperties().getProperty("first"));
+    }
+
+    @Test
+    public void keyProjectionsApplyToMatchingResources() throws Exception {
+        Path directory = Files.createTempDirectory("projection");
+        Path huge = directory.resolve("huge.properties");
+        Path yaml = directory.resolve("app.yml");
+        Path other = directory.resolve("other.properties");
+        Files.write(huge, Arrays.asList("db.url=jdbc", "db.password=secret", "unused=1"));
+        Files.write(yaml, Arrays.asList("spring:", "  datasource: {url: yaml-url}", "  jpa: {ddl: none}"));
+        Files.write(other, Collections.singletonList("unused=2"));
+        KeyProjection hugeProjection = new KeyProjection();
+        hugeProjection.setSource("**/huge.properties");
+        hugeProjection.setIncludes(Collections.singletonList("db.*"));
+        hugeProjection.setExcludes(Collections.singletonList("*.password"));
+        KeyRename rename = new KeyRename();
+        rename.setPattern("spring\\.datasource\\.(.*)");
+        rename.setReplacement("db.yaml.$1");
+        KeyProjection yamlProjection = new KeyProjection();
+        yamlProjection.setSource("**/*.yml");
+        yamlProjection.setIncludes(Collections.singletonList("spring.datasource.*"));
+        yamlProjection.setKeyPrefix("");
+        yamlProjection.setRenames(Collections.singletonList(rename));
+        ReadPropertiesMojo mojo = new ReadPropertiesMojo(
+                Arrays.asList(new JdkPropertiesManager(), new YmlPropertiesManager()), new PropertyResolver());
+        mojo.setProject(projectStub);
+        mojo.setFiles(new File[] {huge.toFile(), yaml.toFile(), other.toFile()});
+        mojo.setKeyPrefix("p.");
+        mojo.setKeyProjections(Arrays.asList(hugeProjection, yamlProjection));
+
+        mojo.execute();
+
+        Properties properties = projectStub.getProperties();
+        assertEquals("jdbc", properties.getProperty("p.db.url"));
+        assertEquals("yaml-url", properties.getProperty("db.yaml.url"));
+        assertEquals("2", properties.getProperty("p.unused"));
+        assertEquals(3, properties.size());
+    }
+
+    @Test
+    public void archiveEntriesAreRead() throws Exception {
+        Path archive = Files.createTempFile("config", ".zip");
+        archive.toFile().deleteOnExit();
+        ArchiveFileSystemsTest.writeArchive(
+                archive, "base.properties", "key=base\nbase=true", "env/prod.yml", "key: prod");
+        ReadPropertiesMojo mojo = new ReadPropertiesMojo(
+                Arrays.asList(new JdkPropertiesManager(), new YmlPropertiesManager()), new PropertyResolver());
+        mojo.setProject(projectStub);
+        mojo.setFiles(new File[] {new File(archive + "!/base.properties"), new File(archive + "!/env/prod.yml")});
+
+        mojo.execute();
+
+        assertEquals("prod", projectStub.getProperties().getProperty("key"));
+        assertEquals("true", projectStub.getProperties().getProperty("base"));
+    }
+
+    @Test
+    public void compressedFilesAreDecodedByExtension() throws Exception {
+        Path directory = Files.createTempDirectory("compressed");
+        Path properties = directory.resolve("base.properties.gz");
+        Path yaml = directory.resolve("env.yml.GZ");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(properties))) {
+            out.write("key=base\nbase=true".getBytes(StandardCharsets.ISO_8859_1));
+        }
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(yaml))) {
+            out.write("key: env".getBytes(StandardCharsets.UTF_8));
+        }
+        ReadPropertiesMojo mojo = new ReadPropertiesMojo(
+                Arrays.asList(new JdkPropertiesManager(), new YmlPropertiesManager()), new PropertyResolver());
+        mojo.setProject(projectStub);
+        mojo.setFiles(new File[] {properties.toFile(), yaml.toFile()});
+
+        mojo.execute();
+
+        assertEquals("env", projectStub.getProperties().getProperty("key"));
+        assertEquals("true", projectStub.getProperties().getProperty("base"));
+    }
+
+    @Test
+    public void missingArchiveEntryFails() throws Exception {
+        Path archive = Files.createTempFile("config", ".zip");
+        archive.toFile().deleteOnExit();
+        ArchiveFileSystemsTest.writeArchive(archive, "base.properties", "key=base");
+        readPropertiesMojo.setFiles(new File[] {new File(archive + "!/missing.properties")});
+
+        try {
+            readPropertiesMojo.execute();
+            fail("missing entry was read");
+        } catch (MojoExecutionException e) {
+            assertThat(e.getMessage(), containsString("missing.properties"));
+        }
+    }
+
+    @Test
+    public void parsedFilesAreSharedWithOtherModulesUntilChanged() throws Exception {
+        Path file = Files.createTempFile("prop-test", ".properties");
+        Files.write(file, Collections.singletonList("key=value1"));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 60000));
+        readPropertiesMojo.setFiles(new File[] {file.toFile()});
+        readPropertiesMojo.setUseParseCache(false);
+        readPropertiesMojo.execute();
+
+        MavenProject other = new MavenProject();
+        readPropertiesMojo.setProject(other);
+        readPropertiesMojo.execute();
+
+        assertEquals("value1", other.getProperties().getProperty("key"));
+
+        Files.write(file, Collections.singletonList("key=value2"));
+        other = new MavenProject();
+        readPropertiesMojo.setProject(other);
+        readPropertiesMojo.execute();
+
+        assertEquals("value2", other.getProperties().getProperty("key"));
+    }
+
+    @Test
+    public void warmSourcesAreParsedOnceAcrossBuilds() throws Exception {
+        AtomicInteger parsed = new AtomicInteger();
+        JdkPropertiesManager manager = new JdkPropertiesManager() {
+            @Override
+            public Map<String, String> load(Path file, Charset charset) throws IOException {
+                parsed.incrementAndGet();
+                return super.load(file, charset);
+            }
+        };
+        WarmSourceCache warmSourceCache = new WarmSourceCache();
+        Path file = Files.createTempFile("prop-test", ".properties");
+        Files.write(file, Collections.singletonList("key=value1"));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 60000));
+
+        for (int build = 0; build < 3; build++) {
+            if (build == 2) {
+                Files.write(file, Collections.singletonList("key=value2"));
+            }
+            ReadPropertiesMojo mojo = new ReadPropertiesMojo(
+                    Collections.singletonList(manager),
+                    new PropertyResolver(),
+                    new ParsedSourceCache(),
+                    warmSourceCache);
+            MavenProject project = new MavenProject();
+            mojo.setProject(project);
+            mojo.setFiles(new File[] {file.toFile()});
+            mojo.setUseParseCache(false);
+            mojo.setKeepSourcesWarm(true);
+            mojo.execute();
+
+            assertEquals(
+                    build == 2 ? "value2" : "value1", project.getProperties().getProperty("key"));
+        }
+
+        assertEquals(2, parsed.get());
+    }
+
+    @Test
+    public void unchangedInputsApplyStoredResult() throws Exception {
+        AtomicInteger parsed = new AtomicInteger();
+        JdkPropertiesManager manager = new JdkPropertiesManager() {
+            @Override
+            public Map<String, String> load(Path file, Charset charset) throws IOException {
+                parsed.incrementAndGet();
+                return super.load(file, charset);
+            }
+        };
+        Path buildDirectory = Files.createTempDirectory("target");
+        Path file = Files.createTempFile("prop-test", ".properties");
+        Files.write(file, Arrays.asList("a=${b}-${fingerprint.test.value}", "b=value"));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 60000));
+        System.setProperty("fingerprint.test.value", "one");
+
+        String[] fingerprints = new String[4];
+        String[] expected = {"value-one", "value-one", "value-two", "other-two"};
+        try {
+            for (int build = 0; build < 4; build++) {
+                if (build == 2) {
+                    System.setProperty("fingerprint.test.value", "two");
+                } else if (build == 3) {
+                    Files.write(file, Arrays.asList("a=${b}-${fingerprint.test.value}", "b=other"));
+                }
+                ReadPropertiesMojo mojo =
+                        new ReadPropertiesMojo(Collections.singletonList(manager), new PropertyResolver());
+                MavenProject project = new MavenProject();
+                project.getBuild().setDirectory(buildDirectory.toString());
+                project.getProperties().setProperty("incoming", "x");
+                mojo.setProject(project);
+                mojo.setFiles(new File[] {file.toFile()});
+                mojo.setUseParseCache(false);
+                mojo.setUseInputFingerprint(true);
+                mojo.execute();
+
+                assertEquals(expected[build], project.getProperties().getProperty("a"));
+                assertEquals("x", project.getProperties().getProperty("incoming"));
+                fingerprints[build] = project.getProperties().getProperty("properties-maven-plugin.fingerprint");
+                assertNotNull(fingerprints[build]);
+            }
+        } finally {
+            System.clearProperty("fingerprint.test.value");
+        }
+
+        // the second build used the stored result, the others parsed the file
+        assertEquals(3, parsed.get());
+        assertEquals(fingerprints[0], fingerprints[1]);
+        assertNotEquals(fingerprints[1], fingerprints[2]);
+        assertNotEquals(fingerprints[2], fingerprints[3]);
+    }
+
     private File getPropertyFileForTesting() throws IOException {
         return getPropertyFileForTesting(null);
     }
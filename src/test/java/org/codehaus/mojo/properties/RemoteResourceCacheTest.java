@@ -0,0 +1,123 @@
+package org.codehaus.mojo.properties;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class RemoteResourceCacheTest {
+
+    private HttpServer server;
+
+    private Path cacheDirectory;
+
+    private final HttpSourceClient client = new HttpSourceClient(1000, 1000, 0, 0, 4);
+
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+    private volatile String body = "key=value\n";
+
+    @Before
+    public void setUp() throws IOException {
+        cacheDirectory = Files.createTempDirectory("remote-cache");
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/test.properties", exchange -> {
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            requests.add(String.valueOf(ifNoneMatch));
+            String etag = "\"" + body.hashCode() + "\"";
+            if (etag.equals(ifNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("ETag", etag);
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL("http://localhost:" + server.getAddress().getPort() + path);
+    }
+
+    @Test
+    public void unchangedSourceIsRevalidatedNotDownloaded() throws IOException {
+        RemoteResourceCache cache = new RemoteResourceCache(cacheDirectory, false, client);
+
+        assertEquals("key=value\n", new String(cache.fetch(url("/test.properties")), StandardCharsets.UTF_8));
+        assertEquals("key=value\n", new String(cache.fetch(url("/test.properties")), StandardCharsets.UTF_8));
+
+        String etag = "\"" + body.hashCode() + "\"";
+        assertEquals(2, requests.size());
+        assertEquals("null", requests.get(0));
+        assertEquals(etag, requests.get(1));
+    }
+
+    @Test
+    public void changedSourceIsDownloadedAgain() throws IOException {
+        RemoteResourceCache cache = new RemoteResourceCache(cacheDirectory, false, client);
+        cache.fetch(url("/test.properties"));
+
+        body = "key=changed\n";
+
+        assertEquals("key=changed\n", new String(cache.fetch(url("/test.properties")), StandardCharsets.UTF_8));
+        assertEquals("key=changed\n", new String(cache.fetch(url("/test.properties")), StandardCharsets.UTF_8));
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    public void offlineUsesCachedCopyWithoutConnecting() throws IOException {
+        new RemoteResourceCache(cacheDirectory, false, client).fetch(url("/test.properties"));
+        requests.clear();
+
+        RemoteResourceCache offline = new RemoteResourceCache(cacheDirectory, true, client);
+
+        assertEquals("key=value\n", new String(offline.fetch(url("/test.properties")), StandardCharsets.UTF_8));
+        assertEquals(0, requests.size());
+    }
+
+    @Test
+    public void offlineFailsForSourceNeverDownloaded() throws IOException {
+        RemoteResourceCache offline = new RemoteResourceCache(cacheDirectory, true, client);
+        try {
+            offline.fetch(url("/test.properties"));
+            fail("offline fetch of an uncached source succeeded");
+        } catch (IOException e) {
+            assertEquals(0, requests.size());
+        }
+    }
+
+    @Test
+    public void missingSourceFails() throws IOException {
+        RemoteResourceCache cache = new RemoteResourceCache(cacheDirectory, false, client);
+        try {
+            cache.fetch(url("/missing.properties"));
+            fail("missing source was read");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
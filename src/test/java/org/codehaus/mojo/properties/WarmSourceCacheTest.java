@@ -0,0 +1,57 @@
+package org.codehaus.mojo.properties;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class WarmSourceCacheTest {
+
+    private final WarmSourceCache cache = new WarmSourceCache();
+
+    private static Map<String, String> properties(int count) {
+        Map<String, String> properties = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            properties.put("key" + i, "value" + i);
+        }
+        return properties;
+    }
+
+    @Test
+    public void leastRecentlyUsedSourcesAreDropped() {
+        cache.put("a", properties(3), 12);
+        cache.put("b", properties(3), 12);
+        cache.put("c", properties(3), 12);
+        // a is used more recently than b
+        assertNotNull(cache.get("a"));
+
+        cache.put("d", properties(3), 12);
+
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertNotNull(cache.get("d"));
+    }
+
+    @Test
+    public void replacedSourceIsCountedOnce() {
+        cache.put("a", properties(5), 100);
+        cache.put("a", Collections.emptyMap(), 100);
+
+        assertEquals("warm source cache: 1 sources, 1 properties, 0 hits, 0 misses", cache.getStatistics());
+    }
+
+    @Test
+    public void statisticsCountHitsAndMisses() {
+        cache.put("a", properties(1), 100);
+        cache.get("a");
+        cache.get("b");
+
+        assertEquals("warm source cache: 1 sources, 2 properties, 1 hits, 1 misses", cache.getStatistics());
+    }
+}
@@ -50,6 +50,26 @@ public class WritePropertiesMojoTest {
         }
     }
 
+    @Test
+    public void lazilyResolvedPropertiesAreWrittenResolved() throws Exception {
+        ReadPropertiesMojo readPropertiesMojo =
+                new ReadPropertiesMojo(Collections.singletonList(new JdkPropertiesManager()), new PropertyResolver());
+        readPropertiesMojo.setProject(projectStub);
+        readPropertiesMojo.setLazyResolution(true);
+        projectStub.getProperties().put("p1", "${p2}");
+        projectStub.getProperties().put("p2", "value");
+        readPropertiesMojo.execute();
+
+        writeProjectProperties.execute();
+
+        try (FileReader fr = new FileReader(outputFile)) {
+            Properties writtenProperties = new Properties();
+            writtenProperties.load(fr);
+
+            assertEquals("value", writtenProperties.getProperty("p1"));
+        }
+    }
+
     @Test
     public void onlyIncludedPropertiesAreWritten() throws Exception {
         String includedKey = UUID.randomUUID().toString();
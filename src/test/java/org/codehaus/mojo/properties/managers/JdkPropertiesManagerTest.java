@@ -3,11 +3,22 @@ package org.codehaus.mojo.properties.managers;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Random;
 
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 public class JdkPropertiesManagerTest {
 
@@ -50,4 +61,164 @@ public class JdkPropertiesManagerTest {
 
         assertEquals(expected, outputStream.toString());
     }
+
+    @Test
+    public void testLoadFollowsPropertiesFormat() throws IOException {
+
+        // given
+        String props = "# comment \\" + NL
+                + "! other comment" + NL
+                + "   " + NL
+                + "  key1 = value1  " + NL
+                + "key2:value2" + NL
+                + "key3 value3" + NL
+                + "key4" + NL
+                + "key5=" + NL
+                + "key\\ 6=value\\=6" + NL
+                + "key7=multi \\" + NL
+                + "   line \\\r\n"
+                + "\t value" + NL
+                + "key8=trailing\\\\" + NL
+                + "key9=\\u0041\\t\\n\\x" + NL
+                + "key10 = : = value10" + NL
+                + "key11=continued \\" + NL
+                + "# not a comment" + NL
+                + "key12=last\\";
+
+        byte[] bytes = props.getBytes(StandardCharsets.ISO_8859_1);
+        Properties expected = new Properties();
+        expected.load(new ByteArrayInputStream(bytes));
+
+        // when
+        Map<String, String> properties = manager.load(new ByteArrayInputStream(bytes), StandardCharsets.ISO_8859_1);
+
+        // then
+        assertEquals(expected, toProperties(properties));
+        assertEquals(12, properties.size());
+        assertEquals("multi line value", properties.get("key7"));
+        assertEquals(
+                Arrays.asList(
+                        "key1", "key2", "key3", "key4", "key5", "key 6", "key7", "key8", "key9", "key10", "key11",
+                        "key12"),
+                new ArrayList<>(properties.keySet()));
+    }
+
+    @Test
+    public void testLoadWithCharset() throws IOException {
+
+        // given
+        String props = "greeting=gr\u00fc\u00df dich" + NL + "escaped=\\u00e9";
+
+        // when
+        Map<String, String> properties =
+                manager.load(new ByteArrayInputStream(props.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+
+        // then
+        assertEquals("gr\u00fc\u00df dich", properties.get("greeting"));
+        assertEquals("\u00e9", properties.get("escaped"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoadMalformedUnicodeEscape() throws IOException {
+        manager.load(
+                new ByteArrayInputStream("key=\\u00g1".getBytes(StandardCharsets.ISO_8859_1)),
+                StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    public void testLoadLargeFile() throws IOException {
+
+        // given
+        Path file = Files.createTempFile("large", ".properties");
+        file.toFile().deleteOnExit();
+        StringBuilder props = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            props.append("key").append(i).append(" = value\\u0020").append(i).append(NL);
+            if (i % 100 == 0) {
+                props.append("# comment ").append(i).append(NL);
+            }
+        }
+        Files.write(file, props.toString().getBytes(StandardCharsets.ISO_8859_1));
+
+        Properties expected = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            expected.load(in);
+        }
+
+        // when
+        Map<String, String> properties = manager.load(file, StandardCharsets.ISO_8859_1);
+
+        // then
+        assertEquals(expected, toProperties(properties));
+        assertEquals("value 99999", properties.get("key99999"));
+    }
+
+    private static Properties toProperties(Map<String, String> map) {
+        Properties properties = new Properties();
+        properties.putAll(map);
+        return properties;
+    }
+
+    @Test
+    public void testLoadWithKeyMapper() throws IOException {
+
+        // given
+        String props = "keep.a=1" + NL + "drop.b=\\u0041" + NL + "keep.c=3";
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(props.getBytes(StandardCharsets.ISO_8859_1));
+
+        // when
+        Map<String, String> properties = manager.load(
+                inputStream, StandardCharsets.ISO_8859_1, key -> key.startsWith("keep.") ? key.substring(5) : null);
+
+        // then
+        assertEquals(Arrays.asList("a", "c"), new ArrayList<>(properties.keySet()));
+        assertEquals("3", properties.get("c"));
+    }
+
+    @Test
+    public void testLoadEmptyContinuedLinesLikeJdk() throws IOException {
+        assertSameAsJdk("\\\n# comment\nkey=value\n");
+        assertSameAsJdk("a=1\n\\\n\nb=2\n");
+        assertSameAsJdk("\\\n  ! comment \\\nkey=value");
+        assertSameAsJdk("  \\\r\n\\\n\\");
+        assertSameAsJdk("a=\\\n\nb=2");
+    }
+
+    @Test
+    public void testLoadRandomInputLikeJdk() throws IOException {
+        String alphabet = "ab=: \t\\\n\r#!u0";
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder props = new StringBuilder();
+            int size = random.nextInt(24);
+            for (int j = 0; j < size; j++) {
+                props.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            assertSameAsJdk(props.toString());
+        }
+    }
+
+    private void assertSameAsJdk(String props) throws IOException {
+        Properties expected = new Properties();
+        try {
+            expected.load(new StringReader(props));
+        } catch (IllegalArgumentException e) {
+            try {
+                load(props);
+                fail("malformed escape was accepted: " + props);
+            } catch (IllegalArgumentException expectedFailure) {
+                return;
+            }
+        }
+        Map<String, String> expectedMap = new HashMap<>();
+        for (String key : expected.stringPropertyNames()) {
+            expectedMap.put(key, expected.getProperty(key));
+        }
+        assertEquals(props, expectedMap, new HashMap<>(load(props)));
+    }
+
+    private Map<String, String> load(String props) throws IOException {
+        return manager.load(
+                new ByteArrayInputStream(props.getBytes(StandardCharsets.ISO_8859_1)), StandardCharsets.ISO_8859_1);
+    }
 }
@@ -3,11 +3,22 @@ package org.codehaus.mojo.properties.managers;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Properties;
 
 import org.junit.Test;
+import org.yaml.snakeyaml.LoaderOptions;
 
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class YmlPropertiesManagerTest {
 
@@ -52,4 +63,347 @@ public class YmlPropertiesManagerTest {
 
         assertEquals(expected, outputStream.toString());
     }
+
+    private Map<String, String> load(String yaml) throws IOException {
+        return manager.load(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testLoadNestedStructures() throws IOException {
+
+        // given
+        final String yaml = "server:" + NL
+                + "  port: 8080" + NL
+                + "  hosts:" + NL
+                + "    - name: a" + NL
+                + "      tags: [x, y]" + NL
+                + "    - name: b" + NL
+                + "  matrix:" + NL
+                + "    - [1, 2]" + NL
+                + "  enabled: yes" + NL
+                + "  empty:" + NL;
+
+        // when
+        final Map<String, String> properties = load(yaml);
+
+        // then
+        assertEquals("8080", properties.get("server.port"));
+        assertEquals("a", properties.get("server.hosts[0].name"));
+        assertEquals("y", properties.get("server.hosts[0].tags[1]"));
+        assertEquals("b", properties.get("server.hosts[1].name"));
+        assertEquals("2", properties.get("server.matrix[0][1]"));
+        assertEquals("yes", properties.get("server.enabled"));
+        assertEquals("", properties.get("server.empty"));
+        assertEquals(
+                Arrays.asList(
+                        "server.port",
+                        "server.hosts[0].name",
+                        "server.hosts[0].tags[0]",
+                        "server.hosts[0].tags[1]",
+                        "server.hosts[1].name",
+                        "server.matrix[0][0]",
+                        "server.matrix[0][1]",
+                        "server.enabled",
+                        "server.empty"),
+                new ArrayList<>(properties.keySet()));
+    }
+
+    @Test
+    public void testLoadAnchorsAliasesAndMergeKeys() throws IOException {
+
+        // given
+        final String yaml = "defaults: &defaults" + NL
+                + "  timeout: 10" + NL
+                + "  retries: &retries 3" + NL
+                + "  nested:" + NL
+                + "    level: &level deep" + NL
+                + "prod:" + NL
+                + "  timeout: 30" + NL
+                + "  <<: *defaults" + NL
+                + "  copy: *retries" + NL
+                + "  list: [*level, *level]" + NL
+                + "all: *defaults" + NL;
+
+        // when
+        final Map<String, String> properties = load(yaml);
+
+        // then
+        assertEquals("30", properties.get("prod.timeout"));
+        assertEquals("3", properties.get("prod.retries"));
+        assertEquals("deep", properties.get("prod.nested.level"));
+        assertEquals("3", properties.get("prod.copy"));
+        assertEquals("deep", properties.get("prod.list[1]"));
+        assertEquals("10", properties.get("all.timeout"));
+        assertEquals("deep", properties.get("all.nested.level"));
+    }
+
+    @Test
+    public void testLoadAllDocuments() throws IOException {
+
+        // when
+        final Map<String, String> properties = load("a: 1" + NL + "b: 1" + NL + "---" + NL + "b: 2" + NL);
+
+        // then
+        assertEquals("1", properties.get("a"));
+        assertEquals("2", properties.get("b"));
+    }
+
+    @Test
+    public void testLoadEmptyDocument() throws IOException {
+        assertTrue(load("# only a comment" + NL).isEmpty());
+        assertTrue(load("---" + NL).isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadRejectsSequenceDocument() throws IOException {
+        load("- a" + NL + "- b" + NL);
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadReportsSyntaxErrors() throws IOException {
+        load("a: [unclosed" + NL);
+    }
+
+    @Test
+    public void testLoadSelectedDocuments() throws IOException {
+
+        // given
+        final String yaml = "name: common" + NL
+                + "---" + NL
+                + "env:" + NL
+                + "  profile: dev" + NL
+                + "url: dev-url" + NL
+                + "---" + NL
+                + "list: [a, b]" + NL
+                + "env: {profile: 'prod, staging'}" + NL
+                + "url: prod-url" + NL
+                + "nested: {deep: [1, 2]}" + NL
+                + "---" + NL
+                + "env: {profile: '!prod'}" + NL
+                + "fallback: true" + NL;
+        final ByteArrayInputStream in = new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8));
+
+        // when
+        final Map<String, String> properties =
+                manager.load(in, new YamlDocumentSelector("env.profile", Arrays.asList("staging")));
+
+        // then
+        assertEquals("common", properties.get("name"));
+        assertEquals("prod-url", properties.get("url"));
+        assertEquals("a", properties.get("list[0]"));
+        assertEquals("2", properties.get("nested.deep[1]"));
+        assertEquals("true", properties.get("fallback"));
+        assertEquals(8, properties.size());
+    }
+
+    @Test
+    public void testLoadSkipsDocumentsWithoutActiveProfile() throws IOException {
+
+        // given
+        final String yaml = "profile: prod" + NL + "url: prod-url" + NL + "---" + NL + "url: default-url" + NL;
+        final ByteArrayInputStream in = new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8));
+
+        // when
+        final Map<String, String> properties =
+                manager.load(in, new YamlDocumentSelector("profile", Collections.emptyList()));
+
+        // then
+        assertEquals(Collections.singletonMap("url", "default-url"), properties);
+    }
+
+    @Test
+    public void testLoadSelectsDocumentsByProfileSequence() throws IOException {
+
+        // given
+        final String yaml = "url: default-url" + NL
+                + "---" + NL
+                + "profile: [dev, test]" + NL
+                + "url: test-url" + NL
+                + "---" + NL
+                + "profile:" + NL
+                + "  - prod" + NL
+                + "  - staging" + NL
+                + "url: prod-url" + NL;
+        final YamlDocumentSelector selector = new YamlDocumentSelector("profile", Arrays.asList("test"));
+
+        // when
+        final Map<String, String> properties =
+                manager.load(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)), selector);
+
+        // then
+        assertEquals("test-url", properties.get("url"));
+        assertEquals("dev", properties.get("profile[0]"));
+        assertEquals("test", properties.get("profile[1]"));
+        assertEquals(3, properties.size());
+    }
+
+    @Test
+    public void testLoadRejectsNestedProfileSelector() throws IOException {
+
+        // given
+        final String yaml = "profile:" + NL + "  name: dev" + NL + "url: dev-url" + NL;
+
+        // when
+        try {
+            manager.load(
+                    new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)),
+                    new YamlDocumentSelector("profile", Arrays.asList("dev")));
+            fail();
+        } catch (IOException e) {
+            // then
+            assertThat(e.getMessage(), containsString("found profile.name"));
+        }
+    }
+
+    private Map<String, String> load(String yaml, LoaderOptions options) throws IOException {
+        return manager.load(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)), null, options);
+    }
+
+    @Test
+    public void testLoadExpandsNestedAliases() throws IOException {
+
+        // given
+        final String yaml =
+                "a: &a {x: 1}" + NL + "b: &b [*a, *a]" + NL + "c: *b" + NL + "d: &a {x: 2}" + NL + "e: *b" + NL;
+
+        // when
+        final Map<String, String> properties = load(yaml);
+
+        // then
+        assertEquals("1", properties.get("c[1].x"));
+        assertEquals("1", properties.get("e[0].x"));
+        assertNull(properties.get("c[2].x"));
+    }
+
+    @Test
+    public void testLoadLimitsAliasExpansion() {
+
+        // given
+        final StringBuilder yaml = new StringBuilder("l0: &l0 [a, a, a, a, a, a, a, a, a]" + NL);
+        for (int i = 1; i < 10; i++) {
+            yaml.append("l").append(i).append(": &l").append(i).append(" [");
+            for (int j = 0; j < 9; j++) {
+                yaml.append(j > 0 ? ", " : "").append("*l").append(i - 1);
+            }
+            yaml.append(']').append(NL);
+        }
+
+        try {
+            // when
+            load(yaml.toString(), new LoaderOptions());
+            fail("alias expansion was not limited");
+        } catch (final IOException e) {
+            // then
+            assertThat(e.getMessage(), containsString("limit of 50"));
+        }
+    }
+
+    @Test
+    public void testLoadLimitsNestingDepth() throws IOException {
+
+        // given
+        final String yaml = "a: {b: {c: [[d]]}}";
+        final LoaderOptions options = new LoaderOptions();
+        options.setNestingDepthLimit(4);
+
+        try {
+            // when
+            load(yaml, options);
+            fail("nesting depth was not limited");
+        } catch (final IOException e) {
+            // then
+            assertThat(e.getMessage(), containsString("limit of 4"));
+        }
+
+        options.setNestingDepthLimit(5);
+        assertEquals("d", load(yaml, options).get("a.b.c[0][0]"));
+    }
+
+    @Test
+    public void testLoadLimitsCodePoints() throws IOException {
+
+        // given
+        final String yaml = "key: " + String.join("", Collections.nCopies(100, "value")) + NL;
+        final LoaderOptions options = new LoaderOptions();
+        options.setCodePointLimit(100);
+
+        try {
+            // when
+            load(yaml, options);
+            fail("code points were not limited");
+        } catch (final IOException e) {
+            // then
+            assertThat(e.getMessage(), containsString("codePointLimit=100"));
+        }
+
+        options.setCodePointLimit(1000);
+        assertEquals(500, load(yaml, options).get("key").length());
+    }
+
+    @Test
+    public void testLoadWithKeyMapperSelectsBeforeMapping() throws IOException {
+
+        // given
+        final String yaml = "env: {profile: dev}" + NL
+                + "db: {url: dev-url, user: dev}" + NL
+                + "---" + NL
+                + "env: {profile: prod}" + NL
+                + "db: {url: prod-url, user: prod}" + NL
+                + "defaults: &defaults {url: default-url, pool: 5}" + NL
+                + "other:" + NL
+                + "  <<: *defaults" + NL
+                + "  url: other-url" + NL;
+        final ByteArrayInputStream in = new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8));
+
+        // when
+        final Map<String, String> properties = manager.load(
+                in,
+                new YamlDocumentSelector("env.profile", Collections.singletonList("prod")),
+                new LoaderOptions(),
+                key -> key.startsWith("env.") ? null : "x." + key);
+
+        // then
+        assertEquals("prod-url", properties.get("x.db.url"));
+        assertEquals("other-url", properties.get("x.other.url"));
+        assertEquals("5", properties.get("x.other.pool"));
+        assertNull(properties.get("x.env.profile"));
+        assertEquals(6, properties.size());
+    }
+
+    @Test
+    public void testLoadMergeKeysOverrideEarlierDocuments() throws IOException {
+
+        // given
+        final String yaml = "a:" + NL
+                + "  x: 1" + NL
+                + "  y: 1" + NL
+                + "---" + NL
+                + "base: &b" + NL
+                + "  x: 2" + NL
+                + "  y: 2" + NL
+                + "a:" + NL
+                + "  y: 3" + NL
+                + "  <<: *b" + NL;
+
+        // when
+        final Map<String, String> properties = load(yaml);
+
+        // then
+        assertEquals("2", properties.get("a.x"));
+        assertEquals("3", properties.get("a.y"));
+    }
+
+    @Test
+    public void testLoadNestedSequencesWithOneIndexPerLevel() throws IOException {
+
+        // when
+        final Map<String, String> properties = load("m:" + NL + "  - [1, [2, 3]]" + NL + "  - 4" + NL);
+
+        // then, not m[0]=[1, [2, 3]] as with the former flattening of the document tree
+        assertEquals("1", properties.get("m[0][0]"));
+        assertEquals("3", properties.get("m[0][1][1]"));
+        assertEquals("4", properties.get("m[1]"));
+        assertNull(properties.get("m[0]"));
+        assertEquals(4, properties.size());
+    }
 }